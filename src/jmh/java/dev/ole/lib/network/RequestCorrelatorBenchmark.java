@@ -0,0 +1,148 @@
+package dev.ole.lib.network;
+
+import dev.ole.lib.utility.scheduler.EventLoopTaskScheduler;
+import dev.ole.lib.utility.scheduler.TaskScheduler;
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.Channel;
+import io.netty5.channel.ChannelHandler;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.channel.ChannelInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelined requests over one loopback connection through a {@link RequestCorrelator}, every request
+ * with the default timeout, so each one also schedules and cancels a timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestCorrelatorBenchmark {
+
+    @Param({"TaskScheduler", "EventLoopTaskScheduler"})
+    public String scheduler;
+
+    @Param({"1000", "200000"})
+    public int requests;
+
+    private NetworkBootstrap network;
+    private TaskScheduler taskScheduler;
+    private RequestCorrelator correlator;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        network = new NetworkBootstrap().workerThreads(2);
+        network.newBootstrap();
+        taskScheduler = scheduler.equals("EventLoopTaskScheduler")
+                ? new EventLoopTaskScheduler(network.getWorkerGroup())
+                : new TaskScheduler(2);
+
+        SocketAddress address = network.bind(new InetSocketAddress("127.0.0.1", 0), new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                channel.pipeline().addLast(new PacketDecoder(registry()), new PacketEncoder(registry()), new EchoHandler());
+            }
+        }).get(0).localAddress();
+
+        Channel client = network.connect(address, new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                channel.pipeline().addLast(new PacketDecoder(registry()), new PacketEncoder(registry()),
+                        new RequestCorrelator(taskScheduler, 60, TimeUnit.SECONDS));
+            }
+        }).asStage().get();
+        correlator = RequestCorrelator.get(client);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        network.shutdown();
+        taskScheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public int pipelined() throws Exception {
+        CompletableFuture<Ping> last = null;
+        for (int i = 0; i < requests; i++) {
+            last = correlator.request(new Ping(i));
+        }
+        // the responses arrive in order, the last one completes after all others
+        return last.get(1, TimeUnit.MINUTES).value;
+    }
+
+    private static PacketRegistry registry() {
+        return new PacketRegistry().register(1, Ping.class, Ping::new);
+    }
+
+    private static final class EchoHandler implements ChannelHandler {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Ping response = new Ping(((Ping) msg).value);
+            response.correlationId = ((Ping) msg).correlationId;
+            response.response = true;
+            ctx.write(response);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    public static final class Ping implements CorrelatedPacket {
+
+        private long correlationId;
+        private int value;
+        private boolean response;
+
+        public Ping() {
+        }
+
+        Ping(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getCorrelationId() {
+            return correlationId;
+        }
+
+        @Override
+        public void setCorrelationId(long correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public boolean isResponse() {
+            return response;
+        }
+
+        @Override
+        public void write(Buffer buffer) {
+            PacketBuffers.writeVarLong(buffer, correlationId);
+            buffer.writeInt(value);
+            buffer.writeBoolean(response);
+        }
+
+        @Override
+        public void read(Buffer buffer) {
+            correlationId = PacketBuffers.readVarLong(buffer);
+            value = buffer.readInt();
+            response = buffer.readBoolean();
+        }
+    }
+}
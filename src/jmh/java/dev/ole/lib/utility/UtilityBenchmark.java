@@ -0,0 +1,63 @@
+package dev.ole.lib.utility;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot helpers of {@link CollectionWrapper} and {@link StringUtil}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UtilityBenchmark {
+
+    private List<Integer> numbers;
+
+    @Setup
+    public void setup() {
+        numbers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            numbers.add(i);
+        }
+    }
+
+    @Benchmark
+    public Collection<String> collectionTransform() {
+        return CollectionWrapper.transform(numbers, String::valueOf);
+    }
+
+    @Benchmark
+    public Collection<Integer> collectionFilterMany() {
+        return CollectionWrapper.filterMany(numbers, number -> (number & 1) == 0);
+    }
+
+    @Benchmark
+    public Integer collectionFilter() {
+        return CollectionWrapper.filter(numbers, number -> number == 99);
+    }
+
+    @Benchmark
+    public String generateRandomString() {
+        return StringUtil.generateRandomString(16);
+    }
+
+    @Benchmark
+    public boolean endsWithIgnoreCase() {
+        return StringUtil.endsWithIgnoreCase("TaskScheduler-Group#Timer", "#timer");
+    }
+
+    @Benchmark
+    public boolean startsWithIgnoreCase() {
+        return StringUtil.startsWithIgnoreCase("TaskScheduler-Group#Timer", "taskscheduler");
+    }
+}
@@ -0,0 +1,123 @@
+package dev.ole.lib.utility.scheduler;
+
+import io.netty5.util.concurrent.DefaultEventExecutorGroup;
+import io.netty5.util.concurrent.EventExecutorGroup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common view over the executors the scheduler benchmarks compare against each other.
+ */
+public interface BenchmarkExecutor {
+
+    static BenchmarkExecutor create(String type, int threads) {
+        switch (type) {
+            case "TaskScheduler":
+                return new TaskSchedulerExecutor(new TaskScheduler(threads));
+            case "ScheduledThreadPoolExecutor":
+                return new ScheduledPoolExecutor(new ScheduledThreadPoolExecutor(threads));
+            case "DefaultEventExecutorGroup":
+                return new NettyExecutor(new DefaultEventExecutorGroup(threads));
+            default:
+                throw new IllegalArgumentException("Unknown executor " + type);
+        }
+    }
+
+    <V> Future<V> submit(Callable<V> callable);
+
+    <V> Future<V> schedule(Callable<V> callable, long delay, TimeUnit unit);
+
+    Future<?> scheduleAtFixedRate(Runnable runnable, long period, TimeUnit unit);
+
+    void shutdown();
+
+    final class TaskSchedulerExecutor implements BenchmarkExecutor {
+
+        private final TaskScheduler scheduler;
+
+        TaskSchedulerExecutor(TaskScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public <V> Future<V> submit(Callable<V> callable) {
+            return scheduler.schedule(callable);
+        }
+
+        @Override
+        public <V> Future<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            return scheduler.schedule(callable, delay, unit);
+        }
+
+        @Override
+        public Future<?> scheduleAtFixedRate(Runnable runnable, long period, TimeUnit unit) {
+            return scheduler.scheduleAtFixedRate(runnable, period, period, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            scheduler.shutdownNow();
+        }
+    }
+
+    final class ScheduledPoolExecutor implements BenchmarkExecutor {
+
+        private final ScheduledThreadPoolExecutor executor;
+
+        ScheduledPoolExecutor(ScheduledThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public <V> Future<V> submit(Callable<V> callable) {
+            return executor.submit(callable);
+        }
+
+        @Override
+        public <V> Future<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            return executor.schedule(callable, delay, unit);
+        }
+
+        @Override
+        public Future<?> scheduleAtFixedRate(Runnable runnable, long period, TimeUnit unit) {
+            return executor.scheduleAtFixedRate(runnable, period, period, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    final class NettyExecutor implements BenchmarkExecutor {
+
+        private final EventExecutorGroup group;
+
+        NettyExecutor(EventExecutorGroup group) {
+            this.group = group;
+        }
+
+        @Override
+        public <V> Future<V> submit(Callable<V> callable) {
+            return group.submit(callable).asStage();
+        }
+
+        @Override
+        public <V> Future<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            return group.schedule(callable, delay, unit).asStage();
+        }
+
+        @Override
+        public Future<?> scheduleAtFixedRate(Runnable runnable, long period, TimeUnit unit) {
+            return group.scheduleAtFixedRate(runnable, period, period, unit).asStage();
+        }
+
+        @Override
+        public void shutdown() {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+}
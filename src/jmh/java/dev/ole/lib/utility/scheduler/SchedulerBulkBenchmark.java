@@ -0,0 +1,72 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out of a batch of entries through {@link TaskScheduler#schedule(java.util.Collection)}
+ * compared to scheduling them one by one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulerBulkBenchmark {
+
+    @Param({"1000", "10000"})
+    public int batchSize;
+
+    private TaskScheduler scheduler;
+    private List<TaskEntry<Object>> entries;
+    private CountDownLatch latch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scheduler = new TaskScheduler(4);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBatch() {
+        CountDownLatch latch = new CountDownLatch(batchSize);
+        this.latch = latch;
+        this.entries = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < batchSize; i++) {
+            entries.add(new TaskEntry<>(() -> {
+                latch.countDown();
+                return null;
+            }, null, 0, 0));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public void bulkSubmission() throws InterruptedException {
+        scheduler.schedule(entries);
+        latch.await();
+    }
+
+    @Benchmark
+    public void loopSubmission() throws InterruptedException {
+        for (TaskEntry<Object> entry : entries) {
+            scheduler.schedule(entry);
+        }
+        latch.await();
+    }
+}
@@ -0,0 +1,74 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submit throughput, future round trip and contended multi-producer submission of the
+ * {@link TaskScheduler} compared to the JDK and Netty executors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchedulerSubmitBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"TaskScheduler", "ScheduledThreadPoolExecutor", "DefaultEventExecutorGroup"})
+    public String executorType;
+
+    @Param({"4"})
+    public int threads;
+
+    private BenchmarkExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = BenchmarkExecutor.create(executorType, threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void submitThroughput() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            executor.submit(() -> {
+                latch.countDown();
+                return null;
+            });
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object futureRoundTrip() throws ExecutionException, InterruptedException {
+        return executor.submit(() -> Boolean.TRUE).get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object contendedSubmission() throws ExecutionException, InterruptedException {
+        return executor.submit(() -> Boolean.TRUE).get();
+    }
+}
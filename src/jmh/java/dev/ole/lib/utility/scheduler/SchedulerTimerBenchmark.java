@@ -0,0 +1,57 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer precision: how long a 1 ms delayed task really takes, and how long 20 runs of a 1 ms
+ * fixed-rate task take (ideally 20 ms, everything above is jitter and drift).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulerTimerBenchmark {
+
+    private static final int RUNS = 20;
+
+    @Param({"TaskScheduler", "ScheduledThreadPoolExecutor", "DefaultEventExecutorGroup"})
+    public String executorType;
+
+    private BenchmarkExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = BenchmarkExecutor.create(executorType, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Object delayedTaskLatency() throws ExecutionException, InterruptedException {
+        return executor.schedule(() -> Boolean.TRUE, 1, TimeUnit.MILLISECONDS).get();
+    }
+
+    @Benchmark
+    public void repeatingTaskJitter() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(RUNS);
+        Future<?> future = executor.scheduleAtFixedRate(latch::countDown, 1, TimeUnit.MILLISECONDS);
+        latch.await();
+        future.cancel(false);
+    }
+}
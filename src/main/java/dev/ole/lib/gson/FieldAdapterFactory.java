@@ -0,0 +1,253 @@
+package dev.ole.lib.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reflection-free adapter for an object type, declared field by field with accessors:
+ * <pre>{@code
+ * GsonRegistry.registerTypeAdapterFactory(FieldAdapterFactory.builder(Message.class, Message::new)
+ *         .stringField("name", Message::getName, Message::setName)
+ *         .intField("count", Message::getCount, Message::setCount)
+ *         .field("sender", UUID.class, Message::getSender, Message::setSender)
+ *         .build());
+ * }</pre>
+ * Nothing is looked up reflectively, neither when the adapter is created nor per message, and numbers
+ * and strings are read and written without boxing. Fields of other types use the adapter Gson has for
+ * them. Unknown names are skipped, fields which are missing or null in the JSON keep the value the
+ * factory gave them.
+ */
+public final class FieldAdapterFactory<T> implements TypeAdapterFactory {
+
+    private final Class<T> type;
+    private final Supplier<T> factory;
+    private final List<FieldBinding<T>> fields;
+
+    private FieldAdapterFactory(Class<T> type, Supplier<T> factory, List<FieldBinding<T>> fields) {
+        this.type = type;
+        this.factory = factory;
+        this.fields = fields;
+    }
+
+    public static <T> Builder<T> builder(Class<T> type, Supplier<T> factory) {
+        return new Builder<>(type, factory);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A> TypeAdapter<A> create(Gson gson, TypeToken<A> typeToken) {
+        if (typeToken.getRawType() != type) {
+            return null;
+        }
+
+        List<Field<T>> bound = new ArrayList<>(fields.size());
+        for (FieldBinding<T> binding : fields) {
+            bound.add(binding.bind(gson));
+        }
+        return (TypeAdapter<A>) new Adapter<>(factory, bound).nullSafe();
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public static final class Builder<T> {
+
+        private final Class<T> type;
+        private final Supplier<T> factory;
+        private final List<FieldBinding<T>> fields = new ArrayList<>();
+
+        private Builder(Class<T> type, Supplier<T> factory) {
+            this.type = type;
+            this.factory = factory;
+        }
+
+        public Builder<T> stringField(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+            return add(gson -> new Field<>(name) {
+                @Override
+                void write(JsonWriter out, T value) throws IOException {
+                    out.value(getter.apply(value));
+                }
+
+                @Override
+                void read(JsonReader in, T value) throws IOException {
+                    setter.accept(value, in.nextString());
+                }
+            });
+        }
+
+        public Builder<T> intField(String name, ToIntFunction<T> getter, ObjIntConsumer<T> setter) {
+            return add(gson -> new Field<>(name) {
+                @Override
+                void write(JsonWriter out, T value) throws IOException {
+                    out.value(getter.applyAsInt(value));
+                }
+
+                @Override
+                void read(JsonReader in, T value) throws IOException {
+                    setter.accept(value, in.nextInt());
+                }
+            });
+        }
+
+        public Builder<T> longField(String name, ToLongFunction<T> getter, ObjLongConsumer<T> setter) {
+            return add(gson -> new Field<>(name) {
+                @Override
+                void write(JsonWriter out, T value) throws IOException {
+                    out.value(getter.applyAsLong(value));
+                }
+
+                @Override
+                void read(JsonReader in, T value) throws IOException {
+                    setter.accept(value, in.nextLong());
+                }
+            });
+        }
+
+        public Builder<T> doubleField(String name, ToDoubleFunction<T> getter, ObjDoubleConsumer<T> setter) {
+            return add(gson -> new Field<>(name) {
+                @Override
+                void write(JsonWriter out, T value) throws IOException {
+                    out.value(getter.applyAsDouble(value));
+                }
+
+                @Override
+                void read(JsonReader in, T value) throws IOException {
+                    setter.accept(value, in.nextDouble());
+                }
+            });
+        }
+
+        public Builder<T> booleanField(String name, Predicate<T> getter, BiConsumer<T, Boolean> setter) {
+            return add(gson -> new Field<>(name) {
+                @Override
+                void write(JsonWriter out, T value) throws IOException {
+                    out.value(getter.test(value));
+                }
+
+                @Override
+                void read(JsonReader in, T value) throws IOException {
+                    setter.accept(value, in.nextBoolean());
+                }
+            });
+        }
+
+        /**
+         * Adds a field which is written with the adapter Gson has for its type.
+         */
+        public <V> Builder<T> field(String name, Type fieldType, Function<T, V> getter, BiConsumer<T, V> setter) {
+            return add(gson -> {
+                @SuppressWarnings("unchecked")
+                TypeAdapter<V> adapter = (TypeAdapter<V>) gson.getAdapter(TypeToken.get(fieldType));
+
+                return new Field<>(name) {
+                    @Override
+                    void write(JsonWriter out, T value) throws IOException {
+                        adapter.write(out, getter.apply(value));
+                    }
+
+                    @Override
+                    void read(JsonReader in, T value) throws IOException {
+                        setter.accept(value, adapter.read(in));
+                    }
+                };
+            });
+        }
+
+        public FieldAdapterFactory<T> build() {
+            return new FieldAdapterFactory<>(type, factory, List.copyOf(fields));
+        }
+
+        private Builder<T> add(FieldBinding<T> binding) {
+            fields.add(binding);
+            return this;
+        }
+    }
+
+    private interface FieldBinding<T> {
+
+        Field<T> bind(Gson gson);
+
+    }
+
+    private abstract static class Field<T> {
+
+        final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        abstract void write(JsonWriter out, T value) throws IOException;
+
+        abstract void read(JsonReader in, T value) throws IOException;
+    }
+
+    private static final class Adapter<T> extends TypeAdapter<T> {
+
+        private final Supplier<T> factory;
+        private final List<Field<T>> fields;
+        private final Map<String, Field<T>> fieldsByName = new HashMap<>();
+
+        private Adapter(Supplier<T> factory, List<Field<T>> fields) {
+            this.factory = factory;
+            this.fields = fields;
+            for (Field<T> field : fields) {
+                fieldsByName.put(field.name, field);
+            }
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            out.beginObject();
+            for (Field<T> field : fields) {
+                // a null value drops the name again unless nulls are serialized
+                out.name(field.name);
+                field.write(out, value);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            T value = factory.get();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                Field<T> field = fieldsByName.get(in.nextName());
+                if (field == null) {
+                    in.skipValue();
+                } else if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else {
+                    field.read(in, value);
+                }
+            }
+            in.endObject();
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package dev.ole.lib.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Builds the Gson instance which is shared by this library and its users. Gson instances are thread-safe
+ * and cache the adapter of every type they have seen, so one instance is built once and reused instead of
+ * paying the adapter lookup, and for reflective adapters the reflection, again for every consumer.
+ * <p>
+ * Adapters are registered up front, the instance is built on the first {@link #getGson()}. The types of
+ * hot messages can be {@link #warmUp(Type...) warmed up} at startup, so the first message does not pay
+ * for building their adapters, or get reflection-free adapters with {@link FieldAdapterFactory}.
+ */
+public final class GsonRegistry {
+
+    private static GsonBuilder builder = new GsonBuilder()
+            .registerTypeAdapter(File.class, new FileTypeAdapter())
+            .registerTypeAdapter(UUID.class, new UUIDTypeAdapter())
+            .registerTypeAdapter(Instant.class, new InstantTypeAdapter())
+            .registerTypeHierarchyAdapter(Path.class, new PathTypeAdapter())
+            .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+            .disableHtmlEscaping();
+
+    private static volatile Gson gson;
+
+    private GsonRegistry() {
+    }
+
+    /**
+     * @throws IllegalStateException if the shared instance is built already.
+     */
+    public static synchronized void registerTypeAdapter(Type type, Object adapter) {
+        checkOpen().registerTypeAdapter(type, adapter);
+    }
+
+    /**
+     * @throws IllegalStateException if the shared instance is built already.
+     */
+    public static synchronized void registerTypeHierarchyAdapter(Class<?> baseType, Object adapter) {
+        checkOpen().registerTypeHierarchyAdapter(baseType, adapter);
+    }
+
+    /**
+     * @throws IllegalStateException if the shared instance is built already.
+     */
+    public static synchronized void registerTypeAdapterFactory(TypeAdapterFactory factory) {
+        checkOpen().registerTypeAdapterFactory(factory);
+    }
+
+    /**
+     * @return the shared instance, built with all adapters registered so far.
+     */
+    public static Gson getGson() {
+        Gson current = gson;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (GsonRegistry.class) {
+            if (gson == null) {
+                gson = builder.create();
+                builder = null;
+            }
+            return gson;
+        }
+    }
+
+    /**
+     * Creates the adapters of the types in the shared instance now, instead of on their first message.
+     */
+    public static void warmUp(Type... types) {
+        Gson current = getGson();
+        for (Type type : types) {
+            current.getAdapter(TypeToken.get(type));
+        }
+    }
+
+    public static boolean isBuilt() {
+        return gson != null;
+    }
+
+    private static GsonBuilder checkOpen() {
+        if (builder == null) {
+            throw new IllegalStateException("The shared Gson is built already, adapters have to be registered before its first use");
+        }
+        return builder;
+    }
+
+}
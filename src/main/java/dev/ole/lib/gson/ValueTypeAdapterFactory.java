@@ -0,0 +1,62 @@
+package dev.ole.lib.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import dev.ole.lib.utility.Value;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Writes a {@link Value} as its content, without the wrapping object, using the adapter of its type
+ * argument. A value holding null is written as null and read back as a null value reference.
+ */
+public class ValueTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != Value.class) {
+            return null;
+        }
+
+        Type contentType = type.getType() instanceof ParameterizedType parameterized
+                ? parameterized.getActualTypeArguments()[0]
+                : Object.class;
+        return (TypeAdapter<T>) new ValueTypeAdapter<>(gson.getAdapter(TypeToken.get(contentType)));
+    }
+
+    private static final class ValueTypeAdapter<E> extends TypeAdapter<Value<E>> {
+
+        private final TypeAdapter<E> contentAdapter;
+
+        private ValueTypeAdapter(TypeAdapter<E> contentAdapter) {
+            this.contentAdapter = contentAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Value<E> value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            contentAdapter.write(out, value.getValue());
+        }
+
+        @Override
+        public Value<E> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return new Value<>(contentAdapter.read(in));
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+
+import java.io.Reader;
+
+/**
+ * Reader which decodes UTF-8 straight from the readable bytes of a buffer into the caller's chars,
+ * without an intermediate byte array. Malformed sequences are read as U+FFFD.
+ * The end of the readable bytes, or of the given length, is the end of the stream.
+ */
+public class BufferUtf8Reader extends Reader {
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final Buffer buffer;
+
+    private final int end;
+
+    private final char[] single = new char[1];
+
+    private char lowSurrogate;
+
+    public BufferUtf8Reader(Buffer buffer) {
+        this(buffer, buffer.readableBytes());
+    }
+
+    /**
+     * Reads at most the given number of bytes, the rest of the buffer is left unread.
+     */
+    public BufferUtf8Reader(Buffer buffer, int length) {
+        this.buffer = buffer;
+        this.end = buffer.readerOffset() + length;
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        if (lowSurrogate != 0) {
+            chars[offset + count++] = lowSurrogate;
+            lowSurrogate = 0;
+        }
+
+        while (count < length && available() > 0) {
+            int first = buffer.readByte() & 0xFF;
+
+            if (first < 0x80) {
+                chars[offset + count++] = (char) first;
+                continue;
+            }
+
+            int codePoint;
+            if ((first & 0xE0) == 0xC0) {
+                codePoint = decode(first & 0x1F, 1, 0x80);
+            } else if ((first & 0xF0) == 0xE0) {
+                codePoint = decode(first & 0x0F, 2, 0x800);
+                if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                    codePoint = -1;
+                }
+            } else if ((first & 0xF8) == 0xF0) {
+                codePoint = decode(first & 0x07, 3, 0x10000);
+                if (codePoint > Character.MAX_CODE_POINT) {
+                    codePoint = -1;
+                }
+            } else {
+                codePoint = -1;
+            }
+
+            if (codePoint < 0) {
+                chars[offset + count++] = REPLACEMENT;
+            } else if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                chars[offset + count++] = (char) codePoint;
+            } else {
+                chars[offset + count++] = Character.highSurrogate(codePoint);
+                if (count < length) {
+                    chars[offset + count++] = Character.lowSurrogate(codePoint);
+                } else {
+                    lowSurrogate = Character.lowSurrogate(codePoint);
+                }
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public int read() {
+        return read(single, 0, 1) < 0 ? -1 : single[0];
+    }
+
+    @Override
+    public boolean ready() {
+        return lowSurrogate != 0 || available() > 0;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public Buffer getBuffer() {
+        return buffer;
+    }
+
+    private int available() {
+        return end - buffer.readerOffset();
+    }
+
+    /**
+     * Reads the continuation bytes of a sequence. A byte which is no continuation is left unread, so it
+     * starts the next sequence.
+     *
+     * @return the code point, or -1 if the sequence is malformed or overlong.
+     */
+    private int decode(int bits, int continuations, int minimum) {
+        int codePoint = bits;
+
+        for (int i = 0; i < continuations; i++) {
+            if (available() == 0) {
+                return -1;
+            }
+
+            int next = buffer.getByte(buffer.readerOffset()) & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                return -1;
+            }
+            buffer.skipReadableBytes(1);
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        return codePoint >= minimum ? codePoint : -1;
+    }
+
+}
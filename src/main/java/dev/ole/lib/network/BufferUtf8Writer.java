@@ -0,0 +1,107 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+
+import java.io.Writer;
+
+/**
+ * Writer which encodes chars as UTF-8 straight into a buffer, without an intermediate byte array. Lone
+ * surrogates are written as {@code ?}, like the JDK encoders do.
+ */
+public class BufferUtf8Writer extends Writer {
+
+    private final Buffer buffer;
+
+    private char highSurrogate;
+
+    public BufferUtf8Writer(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        reserve(length);
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String value, int offset, int length) {
+        reserve(length);
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(value.charAt(i));
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence value) {
+        CharSequence chars = value != null ? value : "null";
+        reserve(chars.length());
+        for (int i = 0; i < chars.length(); i++) {
+            writeChar(chars.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            buffer.writeByte((byte) '?');
+        }
+    }
+
+    public Buffer getBuffer() {
+        return buffer;
+    }
+
+    private void reserve(int length) {
+        // sized for ascii, grows at least by doubling so long documents do not copy over and over
+        if (buffer.writableBytes() < length) {
+            buffer.ensureWritable(length, buffer.capacity(), false);
+        }
+    }
+
+    private void writeChar(char c) {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer.writeByte((byte) (0xF0 | (codePoint >> 18)));
+                buffer.writeByte((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.writeByte((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.writeByte((byte) (0x80 | (codePoint & 0x3F)));
+                return;
+            }
+            buffer.writeByte((byte) '?');
+        }
+
+        if (c < 0x80) {
+            buffer.writeByte((byte) c);
+        } else if (c < 0x800) {
+            buffer.writeByte((byte) (0xC0 | (c >> 6)));
+            buffer.writeByte((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer.writeByte((byte) '?');
+        } else {
+            buffer.writeByte((byte) (0xE0 | (c >> 12)));
+            buffer.writeByte((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.writeByte((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package dev.ole.lib.network;
+
+/**
+ * Packet which is sent as a request or a response through a {@link RequestCorrelator}. The correlation
+ * id has to be written and read with the body, preferably as a varlong with
+ * {@link PacketBuffers#writeVarLong}; the ids count up from 1, so they usually take one to three bytes.
+ * A response carries the id of the request it answers.
+ */
+public interface CorrelatedPacket extends Packet {
+
+    long getCorrelationId();
+
+    void setCorrelationId(long correlationId);
+
+    /**
+     * @return whether this packet answers a request of the other side. Responses are completed by the
+     * correlator, everything else is passed down the pipeline.
+     */
+    default boolean isResponse() {
+        return false;
+    }
+
+}
@@ -0,0 +1,61 @@
+package dev.ole.lib.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import dev.ole.lib.gson.GsonRegistry;
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.ChannelHandlerContext;
+
+import java.lang.reflect.Type;
+
+/**
+ * Reads the frames written by {@link JsonEncoder} and passes one message per frame down the pipeline.
+ * Gson parses straight from the inbound frame, the bytes are never copied into a string first. Frames
+ * with invalid JSON fail on their own, a frame holding {@code null} is dropped.
+ * <p>
+ * Without an own Gson, the shared one of {@link GsonRegistry} is looked up on the first frame, so
+ * adapters can still be registered after the decoder was created.
+ */
+public class JsonDecoder extends VarIntFrameDecoder {
+
+    protected final Gson gson;
+
+    protected final Type type;
+
+    /**
+     * Decodes every frame into a {@link JsonElement}.
+     */
+    public JsonDecoder() {
+        this(JsonElement.class);
+    }
+
+    public JsonDecoder(Type type) {
+        this(null, type, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param gson the Gson to read with, null for the shared one.
+     */
+    public JsonDecoder(Gson gson, Type type, int maxFrameLength) {
+        super(maxFrameLength);
+        this.gson = gson;
+        this.type = type;
+    }
+
+    @Override
+    protected Object decodeFrame(ChannelHandlerContext ctx, Buffer frame) {
+        Object message = PacketBuffers.readJson(frame, getGson(), type);
+        // read as a tree, null is not null but JsonNull
+        return message instanceof JsonNull ? null : message;
+    }
+
+    public Gson getGson() {
+        return gson != null ? gson : GsonRegistry.getGson();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+}
@@ -0,0 +1,63 @@
+package dev.ole.lib.network;
+
+import com.google.gson.Gson;
+import dev.ole.lib.gson.GsonRegistry;
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.ChannelHandlerContext;
+
+import java.lang.reflect.Type;
+
+/**
+ * Writes messages as UTF-8 JSON frames with a varint length in front. The JSON is streamed by Gson
+ * straight into the outbound buffer of the channel's allocator, there is no string or byte array of the
+ * message in between. The encoder holds no state and can be shared by all channels.
+ * <p>
+ * Without an own Gson, the shared one of {@link GsonRegistry} is looked up on the first message, so
+ * adapters can still be registered after the encoder was created.
+ */
+public class JsonEncoder<T> extends VarIntFrameEncoder<T> {
+
+    protected final Gson gson;
+
+    protected final Type type;
+
+    private volatile int sizeHint = 256;
+
+    public JsonEncoder(Class<? extends T> type) {
+        this(null, type, VarIntFrameDecoder.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param gson the Gson to write with, null for the shared one.
+     * @param type the type the messages are serialized as, {@code Object.class} serializes each message as its class.
+     */
+    public JsonEncoder(Gson gson, Class<? extends T> type, int maxFrameLength) {
+        super(type, maxFrameLength);
+        this.gson = gson;
+        this.type = type == Object.class ? null : type;
+    }
+
+    @Override
+    public boolean isSharable() {
+        return true;
+    }
+
+    @Override
+    protected int sizeHint(T message) {
+        return sizeHint;
+    }
+
+    @Override
+    protected void encodeFrame(ChannelHandlerContext ctx, T message, Buffer out) {
+        int start = out.writerOffset();
+        PacketBuffers.writeJson(out, getGson(), message, type != null ? type : message.getClass());
+
+        // size the next buffer after the last message, so growing stays the exception
+        sizeHint = out.writerOffset() - start;
+    }
+
+    public Gson getGson() {
+        return gson != null ? gson : GsonRegistry.getGson();
+    }
+
+}
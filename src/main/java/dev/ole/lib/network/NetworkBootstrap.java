@@ -0,0 +1,323 @@
+package dev.ole.lib.network;
+
+import dev.ole.lib.NettyLib;
+import io.netty5.bootstrap.Bootstrap;
+import io.netty5.bootstrap.ServerBootstrap;
+import io.netty5.buffer.BufferAllocator;
+import io.netty5.buffer.DefaultBufferAllocators;
+import io.netty5.channel.Channel;
+import io.netty5.channel.ChannelHandler;
+import io.netty5.channel.ChannelOption;
+import io.netty5.channel.EventLoopGroup;
+import io.netty5.channel.MultithreadEventLoopGroup;
+import io.netty5.channel.WriteBufferWaterMark;
+import io.netty5.channel.unix.UnixChannelOption;
+import io.netty5.util.concurrent.DefaultThreadFactory;
+import io.netty5.util.concurrent.Future;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sets up servers and clients on the best transport of the machine, see {@link Transport#best()}.
+ * The event loop groups are created on first use and shared by all channels of the bootstrap:
+ * <pre>{@code
+ * NetworkBootstrap network = new NetworkBootstrap().reusePort(true).acceptorThreads(4);
+ * network.bind(new InetSocketAddress(25565), initializer);
+ * ...
+ * network.shutdown();
+ * }</pre>
+ * By default channels get TCP_NODELAY, write buffer water marks and the shared off-heap allocator,
+ * which is pooled unless configured otherwise.
+ * With SO_REUSEPORT on epoll, one server channel is bound per acceptor thread and the
+ * kernel spreads the connections over them; otherwise a single acceptor is used.
+ */
+public class NetworkBootstrap {
+
+    public static final WriteBufferWaterMark DEFAULT_WRITE_BUFFER_WATER_MARK =
+            new WriteBufferWaterMark(64 * 1024, 256 * 1024);
+
+    protected final Transport transport;
+
+    protected final List<Channel> serverChannels = new CopyOnWriteArrayList<>();
+
+    protected Logger logger;
+
+    protected int acceptorThreads = 1;
+
+    protected int workerThreads = Runtime.getRuntime().availableProcessors();
+
+    protected boolean tcpNoDelay = true;
+
+    protected boolean reusePort;
+
+    protected int backlog = 1024;
+
+    protected WriteBufferWaterMark writeBufferWaterMark = DEFAULT_WRITE_BUFFER_WATER_MARK;
+
+    protected BufferAllocator allocator = DefaultBufferAllocators.offHeapAllocator();
+
+    protected volatile EventLoopGroup acceptorGroup;
+
+    protected volatile EventLoopGroup workerGroup;
+
+    // the groups of the last shutdown, which awaitTermination waits for
+    protected volatile List<EventLoopGroup> stoppingGroups = List.of();
+
+    public NetworkBootstrap() {
+        this(Transport.best());
+    }
+
+    public NetworkBootstrap(Transport transport) {
+        this(transport, null);
+    }
+
+    /**
+     * Uses the given transport, or NIO if it is not available here.
+     */
+    public NetworkBootstrap(Transport transport, Logger logger) {
+        this.logger = logger != null ? logger : NettyLib.LOGGER;
+        if (!transport.isAvailable()) {
+            this.logger.log(Level.WARNING, "Transport " + transport + " is not available, falling back to NIO",
+                    transport.getUnavailabilityCause());
+            transport = Transport.NIO;
+        }
+        this.transport = transport;
+        NettyLib.debug("Using transport " + transport);
+    }
+
+    /**
+     * Returns a server bootstrap on the shared groups with the configured options. The child handler
+     * is left to the caller.
+     */
+    public ServerBootstrap newServerBootstrap() {
+        startGroups();
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(acceptorGroup, workerGroup)
+                .channel(transport.getServerChannelClass())
+                .childOption(ChannelOption.BUFFER_ALLOCATOR, allocator)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
+        if (transport.isSocket()) {
+            bootstrap.option(ChannelOption.SO_BACKLOG, backlog)
+                    .option(ChannelOption.SO_REUSEADDR, true)
+                    .childOption(ChannelOption.TCP_NODELAY, tcpNoDelay);
+            if (isMultipleAcceptors()) {
+                bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+            }
+        }
+        return bootstrap;
+    }
+
+    /**
+     * Returns a client bootstrap on the shared worker group with the configured options.
+     */
+    public Bootstrap newBootstrap() {
+        startGroups();
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(workerGroup)
+                .channel(transport.getChannelClass())
+                .option(ChannelOption.BUFFER_ALLOCATOR, allocator)
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
+        if (transport.isSocket()) {
+            bootstrap.option(ChannelOption.TCP_NODELAY, tcpNoDelay);
+        }
+        return bootstrap;
+    }
+
+    /**
+     * Binds the address and waits until it is bound. Returns one server channel per acceptor thread
+     * with SO_REUSEPORT, otherwise a single one. If one of the binds fails, the others are closed again.
+     */
+    public List<Channel> bind(SocketAddress address, ChannelHandler childHandler) throws Exception {
+        ServerBootstrap bootstrap = newServerBootstrap().childHandler(childHandler);
+        int listeners = isMultipleAcceptors() ? acceptorThreads : 1;
+
+        List<Channel> channels = new ArrayList<>(listeners);
+        try {
+            for (int i = 0; i < listeners; i++) {
+                Channel channel = bootstrap.bind(address).asStage().get();
+                channels.add(channel);
+                // an ephemeral port is picked once, the other listeners share it
+                if (address instanceof InetSocketAddress inetAddress && inetAddress.getPort() == 0) {
+                    address = channel.localAddress();
+                }
+            }
+        } catch (Exception exception) {
+            for (Channel channel : channels) {
+                channel.close();
+            }
+            throw exception;
+        }
+        serverChannels.addAll(channels);
+        return channels;
+    }
+
+    public List<Channel> bind(int port, ChannelHandler childHandler) throws Exception {
+        return bind(new InetSocketAddress(port), childHandler);
+    }
+
+    public Future<Channel> connect(SocketAddress address, ChannelHandler handler) {
+        return newBootstrap().handler(handler).connect(address);
+    }
+
+    /**
+     * Closes the bound server channels and shuts the event loop groups down gracefully. The bootstrap
+     * can be used again afterwards, it then starts new groups.
+     */
+    public void shutdown() {
+        for (Channel channel : serverChannels) {
+            channel.close();
+        }
+        serverChannels.clear();
+
+        synchronized (this) {
+            if (workerGroup == null) {
+                return;
+            }
+            acceptorGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+
+            stoppingGroups = List.of(acceptorGroup, workerGroup);
+            acceptorGroup = null;
+            workerGroup = null;
+        }
+    }
+
+    /**
+     * Waits until the groups of the last {@link #shutdown()} terminated.
+     *
+     * @return false if the timeout elapsed first.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        for (EventLoopGroup group : stoppingGroups) {
+            if (!group.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected void startGroups() {
+        if (workerGroup != null) {
+            return;
+        }
+        synchronized (this) {
+            if (workerGroup != null) {
+                return;
+            }
+            int acceptors = isMultipleAcceptors() ? acceptorThreads : 1;
+            acceptorGroup = new MultithreadEventLoopGroup(acceptors,
+                    new DefaultThreadFactory(NettyLib.BRANDING + "-acceptor"), transport.newIoHandlerFactory());
+            workerGroup = new MultithreadEventLoopGroup(workerThreads,
+                    new DefaultThreadFactory(NettyLib.BRANDING + "-worker"), transport.newIoHandlerFactory());
+        }
+    }
+
+    protected boolean isMultipleAcceptors() {
+        return reusePort && acceptorThreads > 1 && transport.isReusePortSupported();
+    }
+
+    /**
+     * Sets the number of threads accepting connections. More than one only takes effect together with
+     * {@link #reusePort(boolean)} on a transport supporting it.
+     */
+    public NetworkBootstrap acceptorThreads(int acceptorThreads) {
+        checkNotStarted();
+        this.acceptorThreads = Math.max(1, acceptorThreads);
+        return this;
+    }
+
+    /**
+     * Sets the number of event loops the channels are spread over, one per processor by default.
+     */
+    public NetworkBootstrap workerThreads(int workerThreads) {
+        checkNotStarted();
+        this.workerThreads = Math.max(1, workerThreads);
+        return this;
+    }
+
+    public NetworkBootstrap reusePort(boolean reusePort) {
+        checkNotStarted();
+        if (reusePort && !transport.isReusePortSupported()) {
+            NettyLib.debug("SO_REUSEPORT is not supported by transport " + transport + ", using a single acceptor");
+        }
+        this.reusePort = reusePort;
+        return this;
+    }
+
+    public NetworkBootstrap tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public NetworkBootstrap backlog(int backlog) {
+        this.backlog = backlog;
+        return this;
+    }
+
+    /**
+     * Sets the pending outbound bytes above which a channel turns unwritable, and below which it turns
+     * writable again.
+     */
+    public NetworkBootstrap writeBufferWaterMark(int low, int high) {
+        this.writeBufferWaterMark = new WriteBufferWaterMark(low, high);
+        return this;
+    }
+
+    public NetworkBootstrap allocator(BufferAllocator allocator) {
+        this.allocator = allocator;
+        return this;
+    }
+
+    private void checkNotStarted() {
+        if (workerGroup != null) {
+            throw new IllegalStateException("The event loop groups are already started");
+        }
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public EventLoopGroup getAcceptorGroup() {
+        return acceptorGroup;
+    }
+
+    public EventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
+
+    public List<Channel> getServerChannels() {
+        return List.copyOf(serverChannels);
+    }
+
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+}
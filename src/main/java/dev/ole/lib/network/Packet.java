@@ -0,0 +1,27 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+
+/**
+ * Message of the packet codec. A packet writes its body straight into the outbound buffer and reads it
+ * back from the inbound frame, it has to read exactly what it wrote. Every packet type needs an id and
+ * a factory in the {@link PacketRegistry}, usually its no-args constructor.
+ */
+public interface Packet {
+
+    void write(Buffer buffer);
+
+    /**
+     * Reads the body from a buffer which holds exactly the frame of this packet.
+     */
+    void read(Buffer buffer);
+
+    /**
+     * @return the expected size of the body in bytes, used to size the outbound buffer. The buffer grows
+     * if the body is larger.
+     */
+    default int sizeHint() {
+        return 64;
+    }
+
+}
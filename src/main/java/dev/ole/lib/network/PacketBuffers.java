@@ -0,0 +1,201 @@
+package dev.ole.lib.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.netty5.buffer.Buffer;
+import io.netty5.handler.codec.CorruptedFrameException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+
+/**
+ * Varints, strings and JSON on Netty buffers. Varints use the protobuf layout, seven bits per byte with the
+ * lowest group first. Everything is read and written in place, without intermediate byte arrays; reading
+ * a string only allocates the chars of the string itself.
+ */
+public final class PacketBuffers {
+
+    public static final int MAX_VAR_INT_SIZE = 5;
+
+    public static final int MAX_VAR_LONG_SIZE = 10;
+
+    /**
+     * The largest string body in bytes which {@link #writeString(Buffer, CharSequence)} writes, its length
+     * always fits into a three byte varint.
+     */
+    public static final int MAX_STRING_BYTES = (1 << 21) - 1;
+
+    private static final int STRING_LENGTH_SIZE = 3;
+
+    private PacketBuffers() {
+    }
+
+    public static int varIntSize(int value) {
+        // one byte per started group of seven bits, negative numbers always take five
+        int bits = 32 - Integer.numberOfLeadingZeros(value);
+        return Math.max(1, (bits + 6) / 7);
+    }
+
+    public static Buffer writeVarInt(Buffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.writeByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        return buffer.writeByte((byte) value);
+    }
+
+    /**
+     * Writes the value as a varint of exactly the given width at an offset, padding it with empty
+     * continuation groups. Readers decode a padded varint like any other, so a length can be reserved
+     * in front of a body and filled in once the body is written.
+     *
+     * @throws IllegalArgumentException if the value does not fit into the width.
+     */
+    public static Buffer setVarInt(Buffer buffer, int offset, int value, int width) {
+        if (width < varIntSize(value) || width > MAX_VAR_INT_SIZE) {
+            throw new IllegalArgumentException(value + " does not fit into a varint of " + width + " bytes");
+        }
+
+        for (int i = 0; i < width - 1; i++) {
+            buffer.setByte(offset + i, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        return buffer.setByte(offset + width - 1, (byte) value);
+    }
+
+    /**
+     * @throws CorruptedFrameException if the varint is longer than five bytes.
+     * @throws IndexOutOfBoundsException if the buffer ends within the varint.
+     */
+    public static int readVarInt(Buffer buffer) {
+        int value = 0;
+
+        for (int i = 0; i < MAX_VAR_INT_SIZE; i++) {
+            byte part = buffer.readByte();
+            if (i == MAX_VAR_INT_SIZE - 1 && (part & 0xF0) != 0) {
+                // only the low four bits of the last byte fit into an int
+                throw new CorruptedFrameException("VarInt does not fit into 32 bits");
+            }
+            value |= (part & 0x7F) << (7 * i);
+
+            if (part >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("VarInt is longer than " + MAX_VAR_INT_SIZE + " bytes");
+    }
+
+    public static int varLongSize(long value) {
+        int bits = 64 - Long.numberOfLeadingZeros(value);
+        return Math.max(1, (bits + 6) / 7);
+    }
+
+    public static Buffer writeVarLong(Buffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.writeByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        return buffer.writeByte((byte) value);
+    }
+
+    public static long readVarLong(Buffer buffer) {
+        long value = 0;
+
+        for (int i = 0; i < MAX_VAR_LONG_SIZE; i++) {
+            byte part = buffer.readByte();
+            if (i == MAX_VAR_LONG_SIZE - 1 && (part & 0xFE) != 0) {
+                // only the lowest bit of the last byte fits into a long
+                throw new CorruptedFrameException("VarLong does not fit into 64 bits");
+            }
+            value |= (long) (part & 0x7F) << (7 * i);
+
+            if (part >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("VarLong is longer than " + MAX_VAR_LONG_SIZE + " bytes");
+    }
+
+    /**
+     * Writes the string as UTF-8 behind its length in bytes. The length is reserved up front, so the
+     * string is encoded only once.
+     *
+     * @throws IllegalArgumentException if the string is longer than {@link #MAX_STRING_BYTES} in UTF-8.
+     */
+    public static Buffer writeString(Buffer buffer, CharSequence value) {
+        // every char takes at least one byte
+        if (value.length() > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String of " + value.length() + " chars exceeds the maximum of " + MAX_STRING_BYTES + " bytes");
+        }
+
+        int start = buffer.writerOffset();
+        buffer.ensureWritable(STRING_LENGTH_SIZE + value.length());
+        buffer.writerOffset(start + STRING_LENGTH_SIZE);
+
+        BufferUtf8Writer writer = new BufferUtf8Writer(buffer);
+        writer.append(value);
+        writer.close();
+
+        int length = buffer.writerOffset() - start - STRING_LENGTH_SIZE;
+        if (length > MAX_STRING_BYTES) {
+            buffer.writerOffset(start);
+            throw new IllegalArgumentException("String of " + length + " bytes exceeds the maximum of " + MAX_STRING_BYTES);
+        }
+        return setVarInt(buffer, start, length, STRING_LENGTH_SIZE);
+    }
+
+    /**
+     * @param maxBytes the longest string in UTF-8 bytes which is accepted.
+     * @throws CorruptedFrameException if the length is negative, above the maximum or beyond the buffer.
+     */
+    public static String readString(Buffer buffer, int maxBytes) {
+        int length = readVarInt(buffer);
+        if (length < 0 || length > maxBytes || length > buffer.readableBytes()) {
+            throw new CorruptedFrameException("String of " + length + " bytes exceeds the maximum of "
+                                                      + Math.min(maxBytes, buffer.readableBytes()));
+        }
+
+        // UTF-8 never takes fewer bytes than UTF-16 chars
+        char[] chars = new char[length];
+        int count = new BufferUtf8Reader(buffer, length).read(chars, 0, length);
+        return new String(chars, 0, Math.max(0, count));
+    }
+
+    /**
+     * Streams the value as UTF-8 JSON into the buffer, without building a string first.
+     */
+    public static Buffer writeJson(Buffer buffer, Gson gson, Object value, Type type) {
+        try {
+            JsonWriter writer = gson.newJsonWriter(new BufferUtf8Writer(buffer));
+            gson.toJson(value, type, writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Parses a value from all readable bytes of the buffer, which have to hold exactly one JSON document.
+     *
+     * @throws CorruptedFrameException if the bytes are no valid JSON for the type or data follows the document.
+     */
+    public static <T> T readJson(Buffer buffer, Gson gson, Type type) {
+        try {
+            JsonReader reader = gson.newJsonReader(new BufferUtf8Reader(buffer));
+            T value = gson.fromJson(reader, type);
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new CorruptedFrameException("Data follows the JSON document");
+            }
+            return value;
+        } catch (JsonParseException | IOException | IllegalStateException e) {
+            throw new CorruptedFrameException("Invalid JSON for " + type.getTypeName(), e);
+        }
+    }
+
+}
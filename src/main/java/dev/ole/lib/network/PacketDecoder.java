@@ -0,0 +1,58 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.handler.codec.CorruptedFrameException;
+
+/**
+ * Reads the frames written by {@link PacketEncoder} and passes one packet per frame down the pipeline.
+ * Unknown ids and bodies which do not match their frame fail the frame only.
+ */
+public class PacketDecoder extends VarIntFrameDecoder {
+
+    protected final PacketRegistry registry;
+
+    public PacketDecoder(PacketRegistry registry) {
+        this(registry, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxFrameLength the largest frame in bytes, packet id and body, which is accepted.
+     */
+    public PacketDecoder(PacketRegistry registry, int maxFrameLength) {
+        super(maxFrameLength);
+        this.registry = registry;
+    }
+
+    @Override
+    protected Object decodeFrame(ChannelHandlerContext ctx, Buffer frame) {
+        int id;
+        try {
+            id = PacketBuffers.readVarInt(frame);
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptedFrameException("Frame ends within the packet id");
+        }
+
+        Packet packet = registry.create(id);
+        if (packet == null) {
+            throw new CorruptedFrameException("Unknown packet id " + id);
+        }
+
+        try {
+            packet.read(frame);
+        } catch (IndexOutOfBoundsException e) {
+            throw new CorruptedFrameException("Packet " + packet.getClass().getName() + " reads past its frame", e);
+        }
+
+        if (frame.readableBytes() > 0) {
+            throw new CorruptedFrameException("Packet " + packet.getClass().getName() + " left "
+                                                      + frame.readableBytes() + " bytes of its frame unread");
+        }
+        return packet;
+    }
+
+    public PacketRegistry getRegistry() {
+        return registry;
+    }
+
+}
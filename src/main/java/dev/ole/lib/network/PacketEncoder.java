@@ -0,0 +1,53 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.handler.codec.EncoderException;
+
+/**
+ * Writes packets as {@code [varint frame length][varint packet id][body]}, the body straight from
+ * {@link Packet#write(Buffer)} into the outbound buffer. The encoder holds no state and can be shared by
+ * all channels.
+ */
+public class PacketEncoder extends VarIntFrameEncoder<Packet> {
+
+    protected final PacketRegistry registry;
+
+    public PacketEncoder(PacketRegistry registry) {
+        this(registry, VarIntFrameDecoder.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxFrameLength the largest frame in bytes, packet id and body, which is written.
+     */
+    public PacketEncoder(PacketRegistry registry, int maxFrameLength) {
+        super(Packet.class, maxFrameLength);
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isSharable() {
+        return true;
+    }
+
+    @Override
+    protected int sizeHint(Packet packet) {
+        return PacketBuffers.MAX_VAR_INT_SIZE + packet.sizeHint();
+    }
+
+    @Override
+    protected void encodeFrame(ChannelHandlerContext ctx, Packet packet, Buffer out) {
+        int id = registry.getId(packet.getClass());
+        if (id < 0) {
+            throw new EncoderException("Packet " + packet.getClass().getName() + " is not registered");
+        }
+
+        PacketBuffers.writeVarInt(out, id);
+        packet.write(out);
+    }
+
+    public PacketRegistry getRegistry() {
+        return registry;
+    }
+
+}
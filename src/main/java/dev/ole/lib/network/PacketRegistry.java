@@ -0,0 +1,72 @@
+package dev.ole.lib.network;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps packet types to ids and back. Ids are small non-negative numbers, the factories are kept in an
+ * array indexed by id, so looking up the type of an inbound frame is a single array access. One registry
+ * is usually shared by all channels and filled before the first channel is opened.
+ */
+public class PacketRegistry {
+
+    public static final int MAX_PACKET_ID = 0xFFFF;
+
+    private final Map<Class<? extends Packet>, Integer> ids = new ConcurrentHashMap<>();
+
+    // generic arrays can only be created with a wildcard
+    @SuppressWarnings("unchecked")
+    private volatile Supplier<? extends Packet>[] factories = (Supplier<? extends Packet>[]) new Supplier<?>[0];
+
+    /**
+     * @throws IllegalArgumentException if the id is out of range, or the id or the type is registered already.
+     */
+    public synchronized <P extends Packet> PacketRegistry register(int id, Class<P> type, Supplier<P> factory) {
+        if (id < 0 || id > MAX_PACKET_ID) {
+            throw new IllegalArgumentException("Packet id " + id + " is out of range 0-" + MAX_PACKET_ID);
+        }
+        if (id < factories.length && factories[id] != null) {
+            throw new IllegalArgumentException("Packet id " + id + " is already registered");
+        }
+        if (ids.containsKey(type)) {
+            throw new IllegalArgumentException("Packet " + type.getName() + " is already registered");
+        }
+
+        Supplier<? extends Packet>[] copy = Arrays.copyOf(factories, Math.max(factories.length, id + 1));
+        copy[id] = factory;
+        ids.put(type, id);
+        factories = copy;
+        return this;
+    }
+
+    /**
+     * @return the id of the type, or -1 if it is not registered.
+     */
+    public int getId(Class<? extends Packet> type) {
+        Integer id = ids.get(type);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return a new packet of the type registered for the id, or null if there is none.
+     */
+    public Packet create(int id) {
+        Supplier<? extends Packet>[] factories = this.factories;
+        if (id < 0 || id >= factories.length || factories[id] == null) {
+            return null;
+        }
+        return factories[id].get();
+    }
+
+    public boolean isRegistered(int id) {
+        Supplier<? extends Packet>[] factories = this.factories;
+        return id >= 0 && id < factories.length && factories[id] != null;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+}
@@ -0,0 +1,272 @@
+package dev.ole.lib.network;
+
+import dev.ole.lib.NettyLib;
+import dev.ole.lib.utility.scheduler.EventLoopTaskScheduler;
+import dev.ole.lib.utility.scheduler.TaskEntryFuture;
+import dev.ole.lib.utility.scheduler.TaskScheduler;
+import io.netty5.channel.Channel;
+import io.netty5.channel.ChannelHandler;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.util.collection.LongObjectHashMap;
+import io.netty5.util.collection.LongObjectMap;
+import io.netty5.util.concurrent.EventExecutor;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches responses to the requests sent over one channel, so many requests can be in flight at once.
+ * It sits behind the packet codec:
+ * <pre>{@code
+ * pipeline.addLast(new PacketDecoder(registry), new PacketEncoder(registry), new RequestCorrelator(scheduler));
+ * ...
+ * RequestCorrelator.get(channel).<StatusResponse>request(new StatusRequest())
+ *         .thenAccept(response -> ...);
+ * }</pre>
+ * Every request gets the next id of a counter and a future, which completes with the response carrying
+ * the same id, or fails with a {@link TimeoutException} once the timeout passed and with a
+ * {@link ClosedChannelException} when the channel closes. The pending requests are only touched on the
+ * event loop of the channel, so a response is matched without locks; the timeouts are entries of the
+ * scheduler and are cancelled when the response arrives. With an {@link EventLoopTaskScheduler} they are
+ * kept by the event loop of the channel and fire right there.
+ * <p>
+ * The futures are completed on the event loop, dependent stages without an own executor run there too.
+ * Responses to unknown or expired requests are dropped.
+ */
+public class RequestCorrelator implements ChannelHandler {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    protected final TaskScheduler scheduler;
+
+    protected final long defaultTimeoutMillis;
+
+    protected final AtomicLong nextId = new AtomicLong();
+
+    // only accessed on the event loop of the channel
+    protected final LongObjectMap<PendingRequest<?>> pendingRequests = new LongObjectHashMap<>();
+
+    protected volatile ChannelHandlerContext context;
+
+    public RequestCorrelator(TaskScheduler scheduler) {
+        this(scheduler, DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param defaultTimeout how long a request waits for its response by default, 0 waits forever.
+     */
+    public RequestCorrelator(TaskScheduler scheduler, long defaultTimeout, TimeUnit timeUnit) {
+        this.scheduler = scheduler;
+        this.defaultTimeoutMillis = timeUnit.toMillis(defaultTimeout);
+    }
+
+    /**
+     * Returns the correlator in the pipeline of the channel, or null if there is none.
+     */
+    public static RequestCorrelator get(Channel channel) {
+        return channel.pipeline().get(RequestCorrelator.class);
+    }
+
+    public <R extends CorrelatedPacket> CompletableFuture<R> request(CorrelatedPacket request) {
+        return request(request, defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the request with the next correlation id. Can be called from any thread.
+     *
+     * @param timeout how long to wait for the response, 0 waits until the channel closes.
+     * @return a future completed with the response. Cancelling it forgets the request, a late response
+     * is dropped.
+     */
+    public <R extends CorrelatedPacket> CompletableFuture<R> request(CorrelatedPacket request, long timeout, TimeUnit timeUnit) {
+        ChannelHandlerContext ctx = context;
+        if (ctx == null) {
+            throw new IllegalStateException("RequestCorrelator is not added to a pipeline");
+        }
+
+        PendingRequest<R> pending = new PendingRequest<>(nextId.incrementAndGet());
+        request.setCorrelationId(pending.id);
+
+        long timeoutMillis = timeUnit.toMillis(timeout);
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            send(ctx, request, pending, timeoutMillis);
+        } else {
+            try {
+                executor.execute(() -> send(ctx, request, pending, timeoutMillis));
+            } catch (RejectedExecutionException exception) {
+                pending.completeExceptionally(new ClosedChannelException());
+            }
+        }
+        return pending;
+    }
+
+    protected void send(ChannelHandlerContext ctx, CorrelatedPacket request, PendingRequest<?> pending, long timeoutMillis) {
+        if (pending.isDone()) {
+            // cancelled before it was sent
+            return;
+        }
+        if (!ctx.channel().isActive()) {
+            pending.completeExceptionally(new ClosedChannelException());
+            return;
+        }
+
+        if (timeoutMillis > 0) {
+            try {
+                pending.timeout = scheduleTimeout(ctx, pending, timeoutMillis);
+            } catch (RuntimeException exception) {
+                pending.completeExceptionally(exception);
+                return;
+            }
+        }
+        pendingRequests.put(pending.id, pending);
+
+        ctx.writeAndFlush(request).addListener(future -> {
+            if (future.isFailed()) {
+                fail(pending.id, future.cause());
+            }
+        });
+    }
+
+    protected TaskEntryFuture<Void> scheduleTimeout(ChannelHandlerContext ctx, PendingRequest<?> pending, long timeoutMillis) {
+        Runnable timeout = () -> fail(pending.id,
+                new TimeoutException("No response to request " + pending.id + " within " + timeoutMillis + " ms"));
+        if (scheduler instanceof EventLoopTaskScheduler eventLoopScheduler) {
+            return eventLoopScheduler.schedule(ctx.executor(), timeout, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return scheduler.schedule(timeout, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Forgets the request and fails its future with the cause, if any, on the event loop of the channel.
+     */
+    protected void fail(long id, Throwable cause) {
+        ChannelHandlerContext ctx = context;
+        if (ctx == null) {
+            return;
+        }
+
+        EventExecutor executor = ctx.executor();
+        if (!executor.inEventLoop()) {
+            try {
+                executor.execute(() -> fail(id, cause));
+            } catch (RejectedExecutionException ignored) {
+                // the channel is gone, its requests were failed when it closed
+            }
+            return;
+        }
+
+        PendingRequest<?> pending = pendingRequests.remove(id);
+        if (pending != null) {
+            pending.cancelTimeout();
+            if (cause != null) {
+                pending.completeExceptionally(cause);
+            }
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.context = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        failAll();
+        this.context = null;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof CorrelatedPacket packet) || !packet.isResponse()) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        PendingRequest<?> pending = pendingRequests.remove(packet.getCorrelationId());
+        if (pending == null) {
+            NettyLib.debug("Dropping response to unknown or expired request " + packet.getCorrelationId());
+            return;
+        }
+        pending.cancelTimeout();
+        pending.completeResponse(packet);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        failAll();
+        ctx.fireChannelInactive();
+    }
+
+    private void failAll() {
+        if (pendingRequests.isEmpty()) {
+            return;
+        }
+
+        List<PendingRequest<?>> pending = new ArrayList<>(pendingRequests.values());
+        pendingRequests.clear();
+        for (PendingRequest<?> request : pending) {
+            request.cancelTimeout();
+            request.completeExceptionally(new ClosedChannelException());
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for their response. Read from another thread than the
+     * event loop it is only an estimate.
+     */
+    public int getPendingCount() {
+        return pendingRequests.size();
+    }
+
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public long getDefaultTimeout(TimeUnit timeUnit) {
+        return timeUnit.convert(defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    protected class PendingRequest<R extends CorrelatedPacket> extends CompletableFuture<R> {
+
+        protected final long id;
+
+        protected TaskEntryFuture<Void> timeout;
+
+        protected PendingRequest(long id) {
+            this.id = id;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected void completeResponse(CorrelatedPacket response) {
+            complete((R) response);
+        }
+
+        protected void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                fail(id, null);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
+    }
+
+}
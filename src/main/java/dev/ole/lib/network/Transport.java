@@ -0,0 +1,139 @@
+package dev.ole.lib.network;
+
+import io.netty5.channel.Channel;
+import io.netty5.channel.IoHandlerFactory;
+import io.netty5.channel.ServerChannel;
+import io.netty5.channel.local.LocalChannel;
+import io.netty5.channel.local.LocalHandler;
+import io.netty5.channel.local.LocalServerChannel;
+import io.netty5.channel.nio.NioHandler;
+import io.netty5.channel.socket.nio.NioServerSocketChannel;
+import io.netty5.channel.socket.nio.NioSocketChannel;
+
+import java.util.function.Supplier;
+
+/**
+ * The Netty transports a {@link NetworkBootstrap} can run on. The native transports are looked up by
+ * name, so they are only used when their classes and native libraries are present; everything else
+ * falls back to NIO.
+ */
+public enum Transport {
+
+    EPOLL("io.netty5.channel.epoll", "Epoll", true),
+    KQUEUE("io.netty5.channel.kqueue", "KQueue", false),
+    NIO(NioHandler::newFactory, NioServerSocketChannel.class, NioSocketChannel.class, true),
+    /**
+     * In-VM transport for tests, channels bind to a {@link io.netty5.channel.local.LocalAddress}.
+     */
+    LOCAL(LocalHandler::newFactory, LocalServerChannel.class, LocalChannel.class, false);
+
+    private final Supplier<IoHandlerFactory> ioHandlerFactory;
+    private final Class<? extends ServerChannel> serverChannelClass;
+    private final Class<? extends Channel> channelClass;
+    private final boolean socket;
+    private final boolean reusePort;
+    private final Throwable unavailabilityCause;
+
+    Transport(Supplier<IoHandlerFactory> ioHandlerFactory,
+              Class<? extends ServerChannel> serverChannelClass,
+              Class<? extends Channel> channelClass,
+              boolean socket) {
+        this.ioHandlerFactory = ioHandlerFactory;
+        this.serverChannelClass = serverChannelClass;
+        this.channelClass = channelClass;
+        this.socket = socket;
+        this.reusePort = false;
+        this.unavailabilityCause = null;
+    }
+
+    Transport(String packageName, String name, boolean reusePort) {
+        Supplier<IoHandlerFactory> ioHandlerFactory = null;
+        Class<? extends ServerChannel> serverChannelClass = null;
+        Class<? extends Channel> channelClass = null;
+        Throwable unavailabilityCause;
+        try {
+            ClassLoader classLoader = Transport.class.getClassLoader();
+            Class<?> availability = Class.forName(packageName + "." + name, true, classLoader);
+            unavailabilityCause = (Throwable) availability.getMethod("unavailabilityCause").invoke(null);
+            if (unavailabilityCause == null) {
+                Class<?> handlerClass = Class.forName(packageName + "." + name + "Handler", true, classLoader);
+                IoHandlerFactory factory = (IoHandlerFactory) handlerClass.getMethod("newFactory").invoke(null);
+                ioHandlerFactory = () -> factory;
+                serverChannelClass = Class.forName(packageName + "." + name + "ServerSocketChannel", false, classLoader)
+                        .asSubclass(ServerChannel.class);
+                channelClass = Class.forName(packageName + "." + name + "SocketChannel", false, classLoader)
+                        .asSubclass(Channel.class);
+            }
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException exception) {
+            unavailabilityCause = exception;
+            ioHandlerFactory = null;
+        }
+        this.ioHandlerFactory = ioHandlerFactory;
+        this.serverChannelClass = serverChannelClass;
+        this.channelClass = channelClass;
+        this.socket = true;
+        this.reusePort = reusePort;
+        this.unavailabilityCause = unavailabilityCause;
+    }
+
+    /**
+     * Returns the fastest transport available on this machine: epoll, kqueue and NIO, in that order.
+     */
+    public static Transport best() {
+        return select(EPOLL, KQUEUE);
+    }
+
+    /**
+     * Returns the first available of the given transports, or NIO if none of them is.
+     */
+    public static Transport select(Transport... preferred) {
+        for (Transport transport : preferred) {
+            if (transport.isAvailable()) {
+                return transport;
+            }
+        }
+        return NIO;
+    }
+
+    public boolean isAvailable() {
+        return ioHandlerFactory != null;
+    }
+
+    /**
+     * Returns why this transport cannot be used, or null if it is available.
+     */
+    public Throwable getUnavailabilityCause() {
+        return unavailabilityCause;
+    }
+
+    public IoHandlerFactory newIoHandlerFactory() {
+        if (ioHandlerFactory == null) {
+            throw new IllegalStateException("Transport " + this + " is not available", unavailabilityCause);
+        }
+        return ioHandlerFactory.get();
+    }
+
+    public Class<? extends ServerChannel> getServerChannelClass() {
+        return serverChannelClass;
+    }
+
+    public Class<? extends Channel> getChannelClass() {
+        return channelClass;
+    }
+
+    /**
+     * Returns whether the channels are TCP sockets, which the socket options apply to.
+     */
+    public boolean isSocket() {
+        return socket;
+    }
+
+    /**
+     * Returns whether several server channels can bind the same address with SO_REUSEPORT and get the
+     * incoming connections balanced between them by the kernel.
+     */
+    public boolean isReusePortSupported() {
+        return reusePort;
+    }
+
+}
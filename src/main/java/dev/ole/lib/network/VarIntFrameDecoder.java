@@ -0,0 +1,132 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.handler.codec.ByteToMessageDecoder;
+import io.netty5.handler.codec.CorruptedFrameException;
+import io.netty5.handler.codec.TooLongFrameException;
+
+/**
+ * Splits the inbound stream into frames with a varint length in front, as written by
+ * {@link VarIntFrameEncoder}, and passes one decoded message per frame down the pipeline.
+ * <p>
+ * Only the length is peeked until the whole frame arrived, partial frames stay in the cumulation. A
+ * complete frame is split off the cumulation, without copying where the decoder owns the cumulation, and
+ * handed to {@link #decodeFrame}, which can not read past it. Empty frames are never written by
+ * {@link VarIntFrameEncoder} and count as a malformed length. Frames above the maximum length fail before
+ * any of their body is buffered, the decoder then discards them as they arrive. A frame which fails to
+ * decode fails on its own, the decoder stays in sync with the stream. A malformed length leaves no frame
+ * boundary to recover at, all further input is dropped and the channel should be closed.
+ */
+public abstract class VarIntFrameDecoder extends ByteToMessageDecoder {
+
+    /**
+     * The largest frame whose length fits into a three byte varint.
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = (1 << 21) - 1;
+
+    protected final int maxFrameLength;
+
+    private long bytesToDiscard;
+
+    /**
+     * @param maxFrameLength the largest frame in bytes which is accepted.
+     */
+    protected VarIntFrameDecoder(int maxFrameLength) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength must be greater than 0");
+        }
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Decodes a complete frame. The frame is closed afterwards, the message must not keep it.
+     *
+     * @return the message to pass on, or null to drop the frame.
+     * @throws CorruptedFrameException if the frame is malformed.
+     */
+    protected abstract Object decodeFrame(ChannelHandlerContext ctx, Buffer frame) throws Exception;
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, Buffer in) throws Exception {
+        if (bytesToDiscard > 0) {
+            int discard = (int) Math.min(bytesToDiscard, in.readableBytes());
+            in.skipReadableBytes(discard);
+            bytesToDiscard -= discard;
+            return;
+        }
+
+        int offset = in.readerOffset();
+        int readable = in.readableBytes();
+
+        int length = 0, headerLength = 0;
+        while (true) {
+            if (headerLength == readable) {
+                // the length itself is still partial
+                return;
+            }
+            if (headerLength == PacketBuffers.MAX_VAR_INT_SIZE) {
+                bytesToDiscard = Long.MAX_VALUE;
+                in.skipReadableBytes(readable);
+                throw new CorruptedFrameException("Frame length is longer than " + PacketBuffers.MAX_VAR_INT_SIZE + " bytes");
+            }
+
+            byte part = in.getByte(offset + headerLength);
+            if (headerLength == PacketBuffers.MAX_VAR_INT_SIZE - 1 && (part & 0xF0) != 0) {
+                bytesToDiscard = Long.MAX_VALUE;
+                in.skipReadableBytes(readable);
+                throw new CorruptedFrameException("Frame length does not fit into 32 bits");
+            }
+            length |= (part & 0x7F) << (7 * headerLength++);
+            if (part >= 0) {
+                break;
+            }
+        }
+
+        if (length <= 0) {
+            bytesToDiscard = Long.MAX_VALUE;
+            in.skipReadableBytes(readable);
+            throw new CorruptedFrameException("Invalid frame length " + length);
+        }
+
+        if (length > maxFrameLength) {
+            int discard = Math.min(readable, headerLength + length);
+            in.skipReadableBytes(discard);
+            bytesToDiscard = (long) headerLength + length - discard;
+            throw new TooLongFrameException("Frame of " + length + " bytes exceeds the maximum of " + maxFrameLength);
+        }
+
+        if (readable - headerLength < length) {
+            return;
+        }
+
+        in.skipReadableBytes(headerLength);
+        Object message;
+        try (Buffer frame = readFrame(in, length)) {
+            message = decodeFrame(ctx, frame);
+        }
+
+        if (message != null) {
+            ctx.fireChannelRead(message);
+        }
+    }
+
+    /**
+     * Splits the frame off the cumulation, or copies it if the cumulation is still shared with its sender,
+     * like a buffer the local transport handed over before the writing side released it.
+     */
+    private static Buffer readFrame(Buffer in, int length) {
+        try {
+            return in.readSplit(length);
+        } catch (IllegalStateException notOwned) {
+            Buffer frame = in.copy(in.readerOffset(), length, true);
+            in.skipReadableBytes(length);
+            return frame;
+        }
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+}
@@ -0,0 +1,72 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.handler.codec.EncoderException;
+import io.netty5.handler.codec.MessageToByteEncoder;
+
+/**
+ * Writes messages as frames with a varint length in front into a buffer of the channel's allocator. The
+ * length is reserved with the width of the largest allowed frame and filled in once the frame is written,
+ * so every message is encoded in a single pass straight into the outbound buffer. A frame must not be
+ * empty.
+ */
+public abstract class VarIntFrameEncoder<I> extends MessageToByteEncoder<I> {
+
+    protected final int maxFrameLength;
+
+    private final int lengthWidth;
+
+    /**
+     * @param maxFrameLength the largest frame in bytes which is written.
+     */
+    protected VarIntFrameEncoder(Class<? extends I> type, int maxFrameLength) {
+        super(type);
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength must be greater than 0");
+        }
+        this.maxFrameLength = maxFrameLength;
+        this.lengthWidth = PacketBuffers.varIntSize(maxFrameLength);
+    }
+
+    /**
+     * Writes the frame of the message, without its length.
+     */
+    protected abstract void encodeFrame(ChannelHandlerContext ctx, I message, Buffer out) throws Exception;
+
+    /**
+     * @return the expected size of the frame in bytes, used to size the outbound buffer. The buffer grows
+     * if the frame is larger.
+     */
+    protected int sizeHint(I message) {
+        return 64;
+    }
+
+    @Override
+    protected Buffer allocateBuffer(ChannelHandlerContext ctx, I message) {
+        return ctx.bufferAllocator().allocate(lengthWidth + Math.max(0, sizeHint(message)));
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, I message, Buffer out) throws Exception {
+        int start = out.writerOffset();
+        out.writerOffset(start + lengthWidth);
+        encodeFrame(ctx, message, out);
+
+        int length = out.writerOffset() - start - lengthWidth;
+        if (length == 0) {
+            // the decoder takes an empty frame for a corrupted stream
+            throw new EncoderException(message.getClass().getName() + " was encoded into an empty frame");
+        }
+        if (length > maxFrameLength) {
+            throw new EncoderException(message.getClass().getName() + " of " + length
+                                               + " bytes exceeds the maximum frame length of " + maxFrameLength);
+        }
+        PacketBuffers.setVarInt(out, start, length, lengthWidth);
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+}
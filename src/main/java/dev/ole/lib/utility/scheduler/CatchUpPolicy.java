@@ -0,0 +1,24 @@
+package dev.ole.lib.utility.scheduler;
+
+/**
+ * Decides what a {@link RepeatMode#FIXED_RATE} entry does when one or more of its grid points
+ * passed while it was running or waiting for a worker.
+ */
+public enum CatchUpPolicy {
+
+    /**
+     * Missed runs are dropped, the entry waits for the next grid point.
+     */
+    SKIP,
+
+    /**
+     * All missed runs are merged into a single immediate run, then the entry continues on the grid.
+     */
+    COALESCE,
+
+    /**
+     * Every missed run is executed back to back until the entry has caught up with the grid.
+     */
+    BURST
+
+}
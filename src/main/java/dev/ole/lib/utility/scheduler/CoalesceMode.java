@@ -0,0 +1,23 @@
+package dev.ole.lib.utility.scheduler;
+
+public enum CoalesceMode {
+
+    /**
+     * The run is due one delay after the first submission, later submissions until it starts are merged
+     * into it.
+     */
+    COALESCE,
+
+    /**
+     * Every submission moves the run to one delay after itself, so it only starts once the key has been
+     * quiet for the whole delay.
+     */
+    DEBOUNCE,
+
+    /**
+     * The first submission runs right away, further runs start at most once per delay and merge all
+     * submissions in between.
+     */
+    THROTTLE
+
+}
@@ -0,0 +1,122 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry which stands for all submissions of a key until it runs. A submission which arrives while the
+ * entry is pending only replaces the runnable, the newest one wins; a submission which arrives while it
+ * is running leads to exactly one more run. The entry leaves the key map once a run finished without
+ * anything new, all submissions merged into it share its future. A throttled entry stays one more delay
+ * after its last run, so the key keeps its rate.
+ */
+class CoalescedTaskEntry extends TaskEntry<Void> {
+
+    private final Object key;
+    private final Map<Object, CoalescedTaskEntry> entries;
+    private final CoalesceMode mode;
+    private final long delayNanos;
+
+    private volatile Runnable runnable;
+    private volatile boolean dirty;
+    private long startedNanos;
+    private boolean window;
+
+    /**
+     * The deadline as moved by a debounced submission. The entry stays in the timing wheel at its old
+     * deadline and is put back once it expires, instead of being rescheduled on every submission.
+     */
+    volatile long quietNanos;
+
+    CoalescedTaskEntry(Object key, Map<Object, CoalescedTaskEntry> entries, CoalesceMode mode, Runnable runnable, long delayNanos) {
+        super(null, null, mode == CoalesceMode.THROTTLE ? 0 : delayNanos, delayNanos, TimeUnit.NANOSECONDS, -1, RepeatMode.FIXED_DELAY, CatchUpPolicy.COALESCE);
+        this.key = key;
+        this.entries = entries;
+        this.mode = mode;
+        this.delayNanos = delayNanos;
+        this.runnable = runnable;
+        this.quietNanos = deadlineNanos;
+        this.task = this::runLatest;
+    }
+
+    /**
+     * Merges a submission, only called while the key is locked in the entry map.
+     */
+    void merge(Runnable runnable, long now) {
+        this.runnable = runnable;
+        this.dirty = true;
+
+        if (mode == CoalesceMode.DEBOUNCE) {
+            this.quietNanos = now + delayNanos;
+        }
+    }
+
+    @Override
+    protected boolean advance(long now) {
+        boolean[] again = new boolean[1];
+
+        // decided under the key lock, so a submission either sees this entry and is run by it, or starts a new one
+        entries.compute(key, (k, current) -> {
+            if (current != this) {
+                return current;
+            }
+            // a throttled key stays taken for one delay after a run, even if nothing new arrived
+            again[0] = dirty || (mode == CoalesceMode.THROTTLE && !window);
+            window = !dirty && again[0];
+            return again[0] ? this : null;
+        });
+
+        if (!again[0]) {
+            return false;
+        }
+
+        long next = mode == CoalesceMode.THROTTLE ? Math.max(now, startedNanos + delayNanos) : now + delayNanos;
+        this.deadlineNanos = next;
+        this.quietNanos = next;
+        this.delayTimeOut = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(next - now);
+        return true;
+    }
+
+    // an entry which will not run anymore leaves the key map, the next submission starts a new one
+
+    @Override
+    protected void fail(Throwable throwable) {
+        super.fail(throwable);
+        entries.remove(key, this);
+    }
+
+    @Override
+    protected void cancel() {
+        super.cancel();
+        entries.remove(key, this);
+    }
+
+    @Override
+    void abandon(Throwable throwable) {
+        super.abandon(throwable);
+        entries.remove(key, this);
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public CoalesceMode getMode() {
+        return mode;
+    }
+
+    private Void runLatest() {
+        if (window && !dirty) {
+            // the throttle window closed without submissions
+            return null;
+        }
+
+        // cleared before the runnable is read, a submission racing with the start causes one more run
+        window = false;
+        dirty = false;
+        startedNanos = System.nanoTime();
+        runnable.run();
+        return null;
+    }
+
+}
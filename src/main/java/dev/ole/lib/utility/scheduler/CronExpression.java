@@ -0,0 +1,220 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Cron expression with five fields ({@code minute hour day-of-month month day-of-week}) or six with
+ * leading seconds. Fields support {@code *}, {@code ?}, values, names ({@code JAN}, {@code MON}),
+ * ranges, lists and steps, plus the macros {@code @yearly}, {@code @monthly}, {@code @weekly},
+ * {@code @daily} and {@code @hourly}. As in Vixie cron, a day matches either day field if both are
+ * restricted.
+ * <p>
+ * Every field is held as a bit mask, so the next fire time is found by jumping from set bit to set
+ * bit instead of stepping through time. Fire times are wall clock times in the zone of the previous
+ * fire time: a time which is skipped by a daylight saving gap fires shifted by the length of the gap,
+ * a time which occurs twice fires once, at its first occurrence.
+ */
+public final class CronExpression implements Trigger {
+
+    private static final int SEARCH_YEARS = 8;
+
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+
+    private final long seconds, minutes, hours, daysOfMonth, months, daysOfWeek;
+
+    private final boolean anyDayOfMonth, anyDayOfWeek;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+
+        int offset = fields.length == 6 ? 1 : 0;
+        this.seconds = offset == 1 ? parseField(expression, fields[0], 0, 59, null, false) : 1L;
+        this.minutes = parseField(expression, fields[offset], 0, 59, null, false);
+        this.hours = parseField(expression, fields[offset + 1], 0, 23, null, false);
+        this.daysOfMonth = parseField(expression, fields[offset + 2], 1, 31, null, true);
+        this.months = parseField(expression, fields[offset + 3], 1, 12, MONTH_NAMES, false);
+
+        // 7 is an alias for sunday
+        long days = parseField(expression, fields[offset + 4], 0, 7, DAY_NAMES, true);
+        this.daysOfWeek = (days & 0x7F) | (days >>> 7);
+
+        this.anyDayOfMonth = isWildcard(fields[offset + 2]);
+        this.anyDayOfWeek = isWildcard(fields[offset + 4]);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is malformed or uses unsupported syntax.
+     */
+    public static CronExpression parse(String expression) {
+        String trimmed = expression.trim();
+
+        String macro = switch (trimmed.toLowerCase(Locale.ROOT)) {
+            case "@yearly", "@annually" -> "0 0 1 1 *";
+            case "@monthly" -> "0 0 1 * *";
+            case "@weekly" -> "0 0 * * 0";
+            case "@daily", "@midnight" -> "0 0 * * *";
+            case "@hourly" -> "0 * * * *";
+            default -> null;
+        };
+
+        String[] fields = (macro != null ? macro : trimmed).split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw invalid(expression, "expected 5 or 6 fields but found " + fields.length);
+        }
+        return new CronExpression(expression, fields);
+    }
+
+    @Override
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZoneId zone = after.getZone();
+        LocalDateTime time = after.toLocalDateTime().withNano(0).plusSeconds(1);
+        int lastYear = time.getYear() + SEARCH_YEARS;
+
+        while (time.getYear() <= lastYear) {
+            if (!isSet(months, time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+
+            if (!matchesDay(time.toLocalDate())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+
+            int hour = nextSet(hours, time.getHour());
+            if (hour != time.getHour()) {
+                time = hour < 0 ? time.truncatedTo(ChronoUnit.DAYS).plusDays(1) : time.truncatedTo(ChronoUnit.DAYS).withHour(hour);
+                continue;
+            }
+
+            int minute = nextSet(minutes, time.getMinute());
+            if (minute != time.getMinute()) {
+                time = minute < 0 ? time.truncatedTo(ChronoUnit.HOURS).plusHours(1) : time.truncatedTo(ChronoUnit.HOURS).withMinute(minute);
+                continue;
+            }
+
+            int second = nextSet(seconds, time.getSecond());
+            if (second != time.getSecond()) {
+                time = second < 0 ? time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1) : time.withSecond(second);
+                continue;
+            }
+
+            ZonedDateTime candidate = ZonedDateTime.ofLocal(time, zone, after.getOffset());
+            if (candidate.isAfter(after)) {
+                return candidate;
+            }
+            time = time.plusSeconds(1);
+        }
+        return null;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(LocalDate date) {
+        boolean dayOfMonth = isSet(daysOfMonth, date.getDayOfMonth());
+        boolean dayOfWeek = isSet(daysOfWeek, date.getDayOfWeek().getValue() % 7);
+
+        if (anyDayOfMonth) {
+            return dayOfWeek;
+        }
+        if (anyDayOfWeek) {
+            return dayOfMonth;
+        }
+        return dayOfMonth || dayOfWeek;
+    }
+
+    private static boolean isSet(long bits, int index) {
+        return (bits & (1L << index)) != 0;
+    }
+
+    private static int nextSet(long bits, int from) {
+        long remaining = bits & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    private static boolean isWildcard(String field) {
+        return field.startsWith("*") || field.equals("?");
+    }
+
+    private static long parseField(String expression, String field, int min, int max, String[] names, boolean dayField) {
+        long bits = 0;
+
+        for (String item : field.split(",")) {
+            String range = item;
+            int step = 1;
+
+            int slash = item.indexOf('/');
+            if (slash >= 0) {
+                range = item.substring(0, slash);
+                step = parseValue(expression, item.substring(slash + 1), 1, max, null);
+            }
+
+            int from, to;
+            if (range.equals("*") || (dayField && range.equals("?"))) {
+                from = min;
+                to = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash >= 0) {
+                    from = parseValue(expression, range.substring(0, dash), min, max, names);
+                    to = parseValue(expression, range.substring(dash + 1), min, max, names);
+                } else {
+                    from = parseValue(expression, range, min, max, names);
+                    to = slash >= 0 ? max : from;
+                }
+            }
+
+            if (from > to) {
+                throw invalid(expression, "range " + range + " runs backwards");
+            }
+
+            for (int i = from; i <= to; i += step) {
+                bits |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String expression, String value, int min, int max, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + (min == 0 ? 0 : 1);
+                }
+            }
+        }
+
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw invalid(expression, "unsupported value '" + value + '\'');
+        }
+
+        if (parsed < min || parsed > max) {
+            throw invalid(expression, parsed + " is out of range " + min + '-' + max);
+        }
+        return parsed;
+    }
+
+    private static IllegalArgumentException invalid(String expression, String reason) {
+        return new IllegalArgumentException("Invalid cron expression '" + expression + "': " + reason);
+    }
+
+}
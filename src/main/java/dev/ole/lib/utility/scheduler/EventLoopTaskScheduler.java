@@ -0,0 +1,233 @@
+package dev.ole.lib.utility.scheduler;
+
+import io.netty5.channel.Channel;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.util.concurrent.EventExecutor;
+import io.netty5.util.concurrent.EventExecutorGroup;
+import io.netty5.util.concurrent.Future;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * {@link TaskScheduler} which runs its entries on the executors of a Netty {@link EventExecutorGroup}
+ * instead of own worker threads. Delays, repeats, triggers, admission and shutdown work as usual;
+ * only due entries are handed to an event executor.
+ * <p>
+ * Entries scheduled for a channel run on that channel's event loop, so work started by a handler
+ * stays on the handler's thread: an entry which becomes due on the loop it belongs to runs right
+ * away, without crossing threads or synchronizing with the channel. Entries without affinity are
+ * spread over the group. The event executors run their tasks in order, so lanes are not applied.
+ * <p>
+ * Delays are kept by the event executors as well, the scheduler starts no threads of its own. The
+ * group is not owned by the scheduler, shutting down the scheduler leaves it running.
+ */
+public class EventLoopTaskScheduler extends TaskScheduler {
+
+    protected final EventExecutorGroup executorGroup;
+
+    /**
+     * Bounds how deep due entries are run inline, like repeats or entries scheduled by other entries
+     * on the same loop. Deeper ones are queued on the loop instead.
+     */
+    private static final int MAX_INLINE_DEPTH = 8;
+
+    private static final ThreadLocal<int[]> INLINE_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    protected final AtomicInteger dispatchedTasks = new AtomicInteger();
+
+    protected final Set<TaskEntry<?>> delayedEntries = ConcurrentHashMap.newKeySet();
+
+    public EventLoopTaskScheduler(EventExecutorGroup executorGroup) {
+        this(executorGroup, null);
+    }
+
+    public EventLoopTaskScheduler(EventExecutorGroup executorGroup, Logger logger) {
+        super(1, logger);
+        this.executorGroup = executorGroup;
+    }
+
+    public TaskEntryFuture<Void> schedule(Channel channel, Runnable runnable) {
+        return schedule(channel.executor(), runnable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public TaskEntryFuture<Void> schedule(Channel channel, Runnable runnable, long delay, TimeUnit timeUnit) {
+        return schedule(channel.executor(), runnable, delay, timeUnit);
+    }
+
+    public TaskEntryFuture<Void> schedule(ChannelHandlerContext context, Runnable runnable) {
+        return schedule(context.executor(), runnable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public <V> TaskEntryFuture<V> schedule(Channel channel, Callable<V> callable) {
+        return schedule(channel.executor(), callable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public <V> TaskEntryFuture<V> schedule(Channel channel, Callable<V> callable, long delay, TimeUnit timeUnit) {
+        return schedule(channel.executor(), callable, delay, timeUnit);
+    }
+
+    public <V> TaskEntryFuture<V> schedule(ChannelHandlerContext context, Callable<V> callable) {
+        return schedule(context.executor(), callable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public TaskEntryFuture<Void> schedule(EventExecutor executor, Runnable runnable, long delay, TimeUnit timeUnit) {
+        return schedule(executor, () -> {
+            runnable.run();
+            return null;
+        }, delay, timeUnit);
+    }
+
+    /**
+     * Schedules the callable to run on the given executor. Repeats keep running on it.
+     */
+    public <V> TaskEntryFuture<V> schedule(EventExecutor executor, Callable<V> callable, long delay, TimeUnit timeUnit) {
+        TaskEntry<V> entry = new TaskEntry<>(callable, null, timeUnit.toMillis(delay), 0);
+        entry.affinity = executor;
+        return schedule(entry);
+    }
+
+    public EventExecutorGroup getExecutorGroup() {
+        return executorGroup;
+    }
+
+    @Override
+    protected void offerDue(TaskEntry<?> entry) {
+        if (state >= STOP) {
+            entry.abandon(shutdownException());
+            return;
+        }
+
+        Executor affinity = entry.affinity;
+        Executor executor = affinity != null ? affinity : executorGroup.next();
+        entry.readyNanos = System.nanoTime();
+
+        dispatchedTasks.incrementAndGet();
+        int[] depth = INLINE_DEPTH.get();
+        if (affinity instanceof EventExecutor loop && loop.inEventLoop() && depth[0] < MAX_INLINE_DEPTH) {
+            depth[0]++;
+            try {
+                dispatch(entry);
+            } finally {
+                depth[0]--;
+            }
+            return;
+        }
+
+        try {
+            executor.execute(() -> dispatch(entry));
+        } catch (RejectedExecutionException e) {
+            // the event loop is shutting down
+            finishDispatch();
+            metrics.rejected.increment();
+            entry.abandon(e);
+        }
+    }
+
+    @Override
+    protected void offerAll(List<TaskEntry<?>>[] dueEntries, List<TaskEntry<?>> delayedEntries) {
+        for (List<TaskEntry<?>> entries : dueEntries) {
+            for (TaskEntry<?> entry : entries) {
+                offerDue(entry);
+            }
+        }
+
+        for (TaskEntry<?> entry : delayedEntries) {
+            offerEntry(entry);
+        }
+    }
+
+    @Override
+    protected boolean offerDelayed(TaskEntry<?> entry) {
+        if (state != RUNNING) {
+            return false;
+        }
+
+        EventExecutor executor = entry.affinity instanceof EventExecutor loop ? loop : executorGroup.next();
+        delayedEntries.add(entry);
+        Future<Void> timer;
+        try {
+            timer = executor.schedule(() -> expireDelayed(entry), entry.deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the event loop is shutting down
+            delayedEntries.remove(entry);
+            return false;
+        }
+        entry.timerCancel = () -> {
+            delayedEntries.remove(entry);
+            timer.cancel();
+        };
+
+        if (state != RUNNING && delayedEntries.remove(entry)) {
+            // raced with a shutdown, which may have collected the timers already
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected Collection<TaskEntry<?>> stopTimers() {
+        Collection<TaskEntry<?>> entries = super.stopTimers();
+        for (TaskEntry<?> entry : delayedEntries) {
+            if (!delayedEntries.remove(entry)) {
+                continue;
+            }
+
+            Runnable timerCancel = entry.timerCancel;
+            if (timerCancel != null) {
+                timerCancel.run();
+            }
+            if (entry.task != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    protected void tryTerminate() {
+        if (dispatchedTasks.get() == 0) {
+            super.tryTerminate();
+        }
+    }
+
+    private void dispatch(TaskEntry<?> entry) {
+        try {
+            if (entry.task == null) {
+                return;
+            }
+
+            if (state >= STOP) {
+                entry.abandon(shutdownException());
+            } else {
+                runEntry(entry);
+            }
+        } finally {
+            finishDispatch();
+        }
+    }
+
+    private void expireDelayed(TaskEntry<?> entry) {
+        if (!delayedEntries.remove(entry) || entry.task == null) {
+            // cancelled or taken by a shutdown
+            return;
+        }
+        entry.timerCancel = null;
+        expireEntry(entry);
+    }
+
+    private void finishDispatch() {
+        if (dispatchedTasks.decrementAndGet() == 0 && state != RUNNING) {
+            tryTerminate();
+        }
+    }
+
+}
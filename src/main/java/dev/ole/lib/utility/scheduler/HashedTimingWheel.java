@@ -0,0 +1,414 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel which holds not-yet-due {@link TaskEntry}s outside of the run queue.
+ * <p>
+ * Entries are linked intrusively into the bucket of their deadline tick, so adding and cancelling
+ * is O(1) and allocation free. All bucket mutations happen on the timer thread; other threads only
+ * hand entries over through lock-free queues. An entry is handed to the expiry callback once its
+ * deadline has passed, never before. The timer thread parks until the earliest deadline and is
+ * only woken early when an entry with an even earlier deadline is scheduled. The buckets only hold
+ * the current revolution, so the earliest deadline is in the first occupied bucket after the current
+ * tick, which a bitmap of the occupied buckets finds without walking the empty ones.
+ * <p>
+ * Entries further away than one revolution wait in an overflow heap and are only moved into their
+ * bucket once the wheel reaches them, so long delays are not revisited on every revolution. Cancelled
+ * entries stay in the heap until they reach its top, or until they make up half of it and the heap is
+ * compacted, so cancelling long timeouts stays cheap as well.
+ */
+public class HashedTimingWheel {
+
+    private static final int OVERFLOW_BUCKET = -2;
+    private static final int CANCELLED_OVERFLOW_BUCKET = -3;
+    private static final int MIN_OVERFLOW_COMPACTION = 1024;
+
+    private final TaskEntry<?>[] heads;
+    private final TaskEntry<?>[] tails;
+    private final long[] occupied;
+    private final int mask;
+    private final long tickNanos;
+
+    private final Queue<TaskEntry<?>> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final Queue<TaskEntry<?>> cancelledEntries = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<TaskEntry<?>> overflowEntries =
+            new PriorityQueue<>((a, b) -> Long.signum(a.deadlineNanos - b.deadlineNanos));
+    private final AtomicInteger size = new AtomicInteger();
+    private int cancelledOverflow;
+    private final AtomicBoolean cancelWakeup = new AtomicBoolean();
+
+    private final Callback<TaskEntry<?>> expired;
+    private final Logger logger;
+    private final Thread timerThread;
+
+    private final long startNanos = System.nanoTime();
+    private long tick;
+
+    private volatile boolean running = true;
+    private volatile boolean parked;
+    private volatile long wakeupNanos;
+
+    public HashedTimingWheel(ThreadGroup threadGroup, String name, long tickDuration, TimeUnit unit, int wheelSize,
+                             Callback<TaskEntry<?>> expired, Logger logger) {
+
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+
+        int normalized = Integer.highestOneBit(wheelSize);
+        if (normalized < wheelSize) {
+            normalized <<= 1;
+        }
+
+        this.heads = new TaskEntry<?>[normalized];
+        this.tails = new TaskEntry<?>[normalized];
+        this.occupied = new long[Math.max(1, normalized >>> 6)];
+        this.mask = normalized - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.expired = expired;
+        this.logger = logger;
+
+        this.timerThread = new Thread(threadGroup, this::run, name);
+        this.timerThread.setDaemon(true);
+        this.timerThread.start();
+    }
+
+    public void schedule(TaskEntry<?> entry) {
+        entry.timingWheel = this;
+        size.incrementAndGet();
+        pendingEntries.offer(entry);
+
+        if (parked && entry.deadlineNanos - wakeupNanos < 0) {
+            LockSupport.unpark(timerThread);
+        }
+    }
+
+    public void schedule(Collection<? extends TaskEntry<?>> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long earliest = 0;
+        boolean first = true;
+        for (TaskEntry<?> entry : entries) {
+            entry.timingWheel = this;
+            if (first || entry.deadlineNanos - earliest < 0) {
+                earliest = entry.deadlineNanos;
+                first = false;
+            }
+        }
+
+        size.addAndGet(entries.size());
+        pendingEntries.addAll(entries);
+
+        if (parked && earliest - wakeupNanos < 0) {
+            LockSupport.unpark(timerThread);
+        }
+    }
+
+    public void cancel(TaskEntry<?> entry) {
+        if (entry.timingWheel == this) {
+            cancelledEntries.offer(entry);
+
+            // only the first cancellation while the timer is parked wakes it, the rest is batched
+            if (parked && cancelWakeup.compareAndSet(false, true)) {
+                LockSupport.unpark(timerThread);
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Stops the timer thread and returns all entries which were still waiting for their deadline.
+     */
+    public Collection<TaskEntry<?>> stop() {
+        running = false;
+        LockSupport.unpark(timerThread);
+
+        if (Thread.currentThread() != timerThread) {
+            boolean interrupted = false;
+            while (timerThread.isAlive()) {
+                try {
+                    timerThread.join(100);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Collection<TaskEntry<?>> entries = new ArrayList<>();
+        for (int i = 0; i < heads.length; i++) {
+            TaskEntry<?> entry = heads[i];
+            while (entry != null) {
+                TaskEntry<?> next = entry.wheelNext;
+                unlink(entry);
+                entry.timingWheel = null;
+                if (entry.task != null) {
+                    entries.add(entry);
+                }
+                entry = next;
+            }
+        }
+
+        TaskEntry<?> entry;
+        while ((entry = overflowEntries.poll()) != null) {
+            boolean cancelled = entry.wheelBucket == CANCELLED_OVERFLOW_BUCKET;
+            entry.wheelBucket = -1;
+            if (cancelled) {
+                continue;
+            }
+            entry.timingWheel = null;
+            if (entry.task != null) {
+                entries.add(entry);
+            }
+        }
+        cancelledOverflow = 0;
+
+        while ((entry = pendingEntries.poll()) != null) {
+            entry.timingWheel = null;
+            if (entry.task != null) {
+                entries.add(entry);
+            }
+        }
+
+        cancelledEntries.clear();
+        size.set(0);
+        return entries;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                processCancelled();
+                transferPending();
+                expire();
+            } catch (Throwable throwable) {
+                logger.log(Level.SEVERE, "Error on expiring timers on Thread [" + timerThread.getName() + ']', throwable);
+            }
+
+            long wakeup = nextDeadline();
+
+            // reset before parked is published, so a cancellation either is seen below or wakes the timer
+            cancelWakeup.set(false);
+            wakeupNanos = wakeup;
+            parked = true;
+            if (running && pendingEntries.isEmpty() && cancelledEntries.isEmpty()) {
+                LockSupport.parkNanos(this, wakeup - System.nanoTime());
+            }
+            parked = false;
+        }
+    }
+
+    private void transferPending() {
+        TaskEntry<?> entry;
+        while ((entry = pendingEntries.poll()) != null) {
+            if (entry.task == null) {
+                entry.timingWheel = null;
+                size.decrementAndGet();
+                continue;
+            }
+
+            entry.wheelTick = Math.max((entry.deadlineNanos - startNanos) / tickNanos, tick);
+            if (entry.wheelTick > tick + mask) {
+                entry.wheelBucket = OVERFLOW_BUCKET;
+                overflowEntries.offer(entry);
+            } else {
+                link((int) (entry.wheelTick & mask), entry);
+            }
+        }
+    }
+
+    private void transferOverflow(long lastTick) {
+        TaskEntry<?> entry;
+        while ((entry = overflowEntries.peek()) != null && entry.wheelTick <= lastTick) {
+            overflowEntries.poll();
+            if (entry.wheelBucket == CANCELLED_OVERFLOW_BUCKET) {
+                entry.wheelBucket = -1;
+                cancelledOverflow--;
+                continue;
+            }
+            entry.wheelBucket = -1;
+
+            if (entry.task == null) {
+                entry.timingWheel = null;
+                size.decrementAndGet();
+                continue;
+            }
+
+            entry.wheelTick = Math.max(entry.wheelTick, tick);
+            link((int) (entry.wheelTick & mask), entry);
+        }
+    }
+
+    private void processCancelled() {
+        TaskEntry<?> entry;
+        while ((entry = cancelledEntries.poll()) != null) {
+            if (entry.wheelBucket == OVERFLOW_BUCKET) {
+                // removing from the heap is linear, it is left there until it is polled or compacted
+                entry.wheelBucket = CANCELLED_OVERFLOW_BUCKET;
+                entry.timingWheel = null;
+                size.decrementAndGet();
+                cancelledOverflow++;
+
+            } else if (entry.wheelBucket >= 0) {
+                unlink(entry);
+                entry.timingWheel = null;
+                size.decrementAndGet();
+            }
+        }
+
+        if (cancelledOverflow >= MIN_OVERFLOW_COMPACTION && cancelledOverflow * 2 >= overflowEntries.size()) {
+            overflowEntries.removeIf(overflow -> {
+                if (overflow.wheelBucket != CANCELLED_OVERFLOW_BUCKET) {
+                    return false;
+                }
+                overflow.wheelBucket = -1;
+                return true;
+            });
+            cancelledOverflow = 0;
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        long currentTick = (now - startNanos) / tickNanos;
+        long lastTick = Math.min(currentTick, tick + mask);
+
+        transferOverflow(currentTick + mask);
+
+        for (long t = tick; t <= lastTick; t++) {
+            TaskEntry<?> entry = heads[(int) (t & mask)];
+            while (entry != null) {
+                TaskEntry<?> next = entry.wheelNext;
+
+                if (entry.task == null) {
+                    unlink(entry);
+                    entry.timingWheel = null;
+                    size.decrementAndGet();
+
+                } else if (entry.deadlineNanos - now <= 0) {
+                    unlink(entry);
+                    entry.timingWheel = null;
+                    size.decrementAndGet();
+                    expired.call(entry);
+                }
+
+                entry = next;
+            }
+        }
+
+        tick = currentTick;
+    }
+
+    private long nextDeadline() {
+        long earliest = 0;
+        boolean any = false;
+
+        int start = (int) (tick & mask);
+        for (int distance = 0; distance <= mask && !any; ) {
+            int bucket = nextOccupied((start + distance) & mask);
+            int found = (bucket - start) & mask;
+            if (bucket < 0 || found < distance) {
+                // wrapped around, no bucket holds a live entry
+                break;
+            }
+
+            for (TaskEntry<?> entry = heads[bucket]; entry != null; entry = entry.wheelNext) {
+                if (entry.task != null && (!any || entry.deadlineNanos - earliest < 0)) {
+                    earliest = entry.deadlineNanos;
+                    any = true;
+                }
+            }
+            distance = found + 1;
+        }
+
+        TaskEntry<?> overflow = overflowEntries.peek();
+        if (overflow != null && (!any || overflow.deadlineNanos - earliest < 0)) {
+            earliest = overflow.deadlineNanos;
+            any = true;
+        }
+
+        return any ? earliest : System.nanoTime() + TimeUnit.DAYS.toNanos(1);
+    }
+
+    /**
+     * Returns the first occupied bucket at or after the given one, wrapping around, or -1 if all are empty.
+     */
+    private int nextOccupied(int from) {
+        int word = from >>> 6;
+        long bits = occupied[word] & (-1L << from);
+
+        for (int i = 0; i <= occupied.length; i++) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            word = word + 1 == occupied.length ? 0 : word + 1;
+            bits = occupied[word];
+        }
+        return -1;
+    }
+
+    private void link(int bucket, TaskEntry<?> entry) {
+        entry.wheelBucket = bucket;
+        entry.wheelPrev = tails[bucket];
+        entry.wheelNext = null;
+
+        if (tails[bucket] == null) {
+            heads[bucket] = entry;
+        } else {
+            tails[bucket].wheelNext = entry;
+        }
+        tails[bucket] = entry;
+        occupied[bucket >>> 6] |= 1L << bucket;
+    }
+
+    private void unlink(TaskEntry<?> entry) {
+        int bucket = entry.wheelBucket;
+        if (bucket == -1) {
+            return;
+        }
+
+        if (entry.wheelPrev == null) {
+            heads[bucket] = entry.wheelNext;
+            if (heads[bucket] == null) {
+                occupied[bucket >>> 6] &= ~(1L << bucket);
+            }
+        } else {
+            entry.wheelPrev.wheelNext = entry.wheelNext;
+        }
+
+        if (entry.wheelNext == null) {
+            tails[bucket] = entry.wheelPrev;
+        } else {
+            entry.wheelNext.wheelPrev = entry.wheelPrev;
+        }
+
+        entry.wheelPrev = null;
+        entry.wheelNext = null;
+        entry.wheelBucket = -1;
+    }
+}
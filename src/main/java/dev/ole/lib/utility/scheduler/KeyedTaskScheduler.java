@@ -0,0 +1,164 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Serial execution per key on top of a {@link TaskScheduler}. Entries submitted under the same key run
+ * strictly in submission order and never at the same time, while different keys are spread over all
+ * workers of the scheduler.
+ * <p>
+ * No thread is pinned to a key: every key with pending entries owns a queue and a single drain task on
+ * the scheduler. The queue is removed as soon as it runs empty, so memory is proportional to the number
+ * of keys with pending work only.
+ */
+public class KeyedTaskScheduler<K> {
+
+    private static final int DRAIN_BATCH = 64;
+
+    private final TaskScheduler scheduler;
+
+    private final Map<K, SerialQueue> queues = new ConcurrentHashMap<>();
+
+    public KeyedTaskScheduler(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public KeyedTaskScheduler() {
+        this(TaskScheduler.runtimeScheduler());
+    }
+
+    public TaskEntryFuture<Void> schedule(K key, Runnable runnable) {
+        return schedule(key, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public <V> TaskEntryFuture<V> schedule(K key, Callable<V> callable) {
+        return schedule(key, callable, null);
+    }
+
+    public <V> TaskEntryFuture<V> schedule(K key, Callable<V> callable, Callback<V> callback) {
+        TaskEntry<V> entry = new TaskEntry<>(callable, callback, 0, 0);
+        boolean[] created = new boolean[1];
+
+        SerialQueue queue = queues.compute(key, (k, current) -> {
+            if (current == null) {
+                current = new SerialQueue(k);
+                created[0] = true;
+            }
+            current.entries.offer(entry);
+            return current;
+        });
+
+        if (created[0]) {
+            try {
+                scheduler.schedule(new DrainEntry(queue));
+            } catch (RejectedExecutionException e) {
+                // the queue was just created, so the rejected entry is the only one in it
+                queues.remove(key, queue);
+                throw e;
+            }
+        }
+        return entry.drop();
+    }
+
+    /**
+     * @return the number of keys which currently have pending or running entries.
+     */
+    public int getActiveKeys() {
+        return queues.size();
+    }
+
+    public boolean isActive(K key) {
+        return queues.containsKey(key);
+    }
+
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private void drain(SerialQueue queue) {
+        // once the scheduler is shut down, the rest of the queue is abandoned below
+        for (int i = 0; i < DRAIN_BATCH && !scheduler.isShutdown(); i++) {
+            TaskEntry<?> entry = queue.entries.poll();
+            if (entry == null) {
+                break;
+            }
+
+            if (entry.task != null) {
+                scheduler.runEntry(entry);
+            }
+        }
+
+        // new entries are only offered inside compute, so an empty queue here really is empty
+        SerialQueue remaining = queues.compute(queue.key, (k, current) -> current.entries.isEmpty() ? null : current);
+        if (remaining == null) {
+            return;
+        }
+
+        if (scheduler.isShutdown()) {
+            abandon(queue, scheduler.shutdownException());
+        } else {
+            // the key was admitted already, its continuation must not be rejected by a bounded queue
+            scheduler.offerEntry(new DrainEntry(queue));
+        }
+    }
+
+    /**
+     * Fails all entries of the queue and forgets the key. Entries scheduled for the key afterwards get a
+     * new queue, whose drain is rejected by the shut down scheduler.
+     */
+    private void abandon(SerialQueue queue, Throwable throwable) {
+        queues.remove(queue.key, queue);
+
+        TaskEntry<?> entry;
+        while ((entry = queue.entries.poll()) != null) {
+            entry.abandon(throwable);
+        }
+    }
+
+    /**
+     * Runs a batch of a queue. It is not counted by the metrics itself, the entries it runs are.
+     */
+    private final class DrainEntry extends TaskEntry<Void> {
+
+        private final SerialQueue queue;
+
+        DrainEntry(SerialQueue queue) {
+            super(() -> {
+                drain(queue);
+                return null;
+            }, null, 0, 0);
+            this.queue = queue;
+        }
+
+        @Override
+        boolean isRecorded() {
+            return false;
+        }
+
+        @Override
+        void abandon(Throwable throwable) {
+            // dropped by shutdownNow or never queued, the entries of the key would wait forever
+            super.abandon(throwable);
+            KeyedTaskScheduler.this.abandon(queue, throwable);
+        }
+    }
+
+    private final class SerialQueue {
+
+        private final K key;
+
+        private final Queue<TaskEntry<?>> entries = new ConcurrentLinkedQueue<>();
+
+        SerialQueue(K key) {
+            this.key = key;
+        }
+    }
+}
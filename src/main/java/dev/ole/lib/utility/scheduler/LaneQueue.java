@@ -0,0 +1,148 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run queue with one lock-free FIFO deque per {@link TaskLane}. The depth of every lane is tracked
+ * in a striped counter, so it can be observed without walking the deques.
+ */
+public class LaneQueue {
+
+    static final TaskLane[] LANES = TaskLane.values();
+
+    private final Deque<TaskEntry<?>>[] lanes;
+    private final LongAdder[] depths;
+
+    // generic arrays can only be created with a wildcard, the lanes are never exposed
+    @SuppressWarnings("unchecked")
+    public LaneQueue() {
+        this.lanes = (Deque<TaskEntry<?>>[]) new Deque<?>[LANES.length];
+        this.depths = new LongAdder[LANES.length];
+
+        for (int i = 0; i < LANES.length; i++) {
+            lanes[i] = new ConcurrentLinkedDeque<>();
+            depths[i] = new LongAdder();
+        }
+    }
+
+    public void offer(TaskEntry<?> entry) {
+        int lane = entry.lane.ordinal();
+        lanes[lane].offer(entry);
+        depths[lane].increment();
+    }
+
+    /**
+     * Appends all entries to the given lane. The entries are linked up front and published with a
+     * single tail swap of the lane's deque.
+     */
+    public void offerAll(TaskLane lane, Collection<? extends TaskEntry<?>> entries) {
+        offerAll(lane.ordinal(), entries);
+    }
+
+    void offerAll(int lane, Collection<? extends TaskEntry<?>> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        lanes[lane].addAll(entries);
+        depths[lane].add(entries.size());
+    }
+
+    public TaskEntry<?> poll(TaskLane lane) {
+        return poll(lane.ordinal());
+    }
+
+    TaskEntry<?> poll(int lane) {
+        TaskEntry<?> entry = lanes[lane].poll();
+        if (entry != null) {
+            depths[lane].decrement();
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the oldest entry of the lane which holds a queue permit. Entries without one, like
+     * repeats, would not free any capacity.
+     */
+    TaskEntry<?> pollPermitted(int lane) {
+        Iterator<TaskEntry<?>> iterator = lanes[lane].iterator();
+        while (iterator.hasNext()) {
+            TaskEntry<?> entry = iterator.next();
+            // a worker may take the entry meanwhile
+            if (entry.permit != null && lanes[lane].removeFirstOccurrence(entry)) {
+                depths[lane].decrement();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Polls the oldest entry of the highest lane which is not empty.
+     */
+    public TaskEntry<?> poll() {
+        for (int i = 0; i < lanes.length; i++) {
+            TaskEntry<?> entry = poll(i);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty(TaskLane lane) {
+        return isEmpty(lane.ordinal());
+    }
+
+    boolean isEmpty(int lane) {
+        return lanes[lane].isEmpty();
+    }
+
+    public boolean isEmpty() {
+        for (Deque<TaskEntry<?>> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long size(TaskLane lane) {
+        return Math.max(0, depths[lane.ordinal()].sum());
+    }
+
+    public long size() {
+        long size = 0;
+        for (LongAdder depth : depths) {
+            size += depth.sum();
+        }
+        return Math.max(0, size);
+    }
+
+    /**
+     * @return how long the oldest entry at the head of any lane has been waiting, or 0 if none waits.
+     */
+    long oldestWaitNanos(long now) {
+        long oldest = 0;
+        for (Deque<TaskEntry<?>> lane : lanes) {
+            TaskEntry<?> entry = lane.peek();
+            if (entry != null && entry.readyNanos != 0) {
+                oldest = Math.max(oldest, now - entry.readyNanos);
+            }
+        }
+        return oldest;
+    }
+
+    public void drainTo(Collection<TaskEntry<?>> collection) {
+        for (int i = 0; i < lanes.length; i++) {
+            TaskEntry<?> entry;
+            while ((entry = poll(i)) != null) {
+                collection.add(entry);
+            }
+        }
+    }
+
+}
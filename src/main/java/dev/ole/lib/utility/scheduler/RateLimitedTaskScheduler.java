@@ -0,0 +1,330 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiting per key on top of a {@link TaskScheduler}. Every key owns a bucket with a
+ * burst capacity and a refill rate; an entry submitted under a key is handed to the scheduler as soon
+ * as its bucket has a token, in submission order per key.
+ * <p>
+ * Entries which have to wait are kept in the bucket, not on a thread. One release entry per waiting key
+ * sits in the scheduler's timer until the next token is due, then hands over as many entries as there
+ * are tokens. Entries submitted meanwhile queue up behind them, even if a token is available. Buckets which are full and have nothing waiting are dropped after a while, so memory
+ * is proportional to the recently used keys.
+ */
+public class RateLimitedTaskScheduler<K> {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final TaskScheduler scheduler;
+
+    private final Map<K, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<K, Limit> limits = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    private volatile Limit defaultLimit;
+
+    /**
+     * @param permitsPerSecond the refill rate of every bucket which has no own limit.
+     * @param burst            the capacity of every bucket which has no own limit.
+     */
+    public RateLimitedTaskScheduler(TaskScheduler scheduler, double permitsPerSecond, int burst) {
+        this.scheduler = scheduler;
+        this.defaultLimit = new Limit(permitsPerSecond, burst);
+    }
+
+    public RateLimitedTaskScheduler(double permitsPerSecond, int burst) {
+        this(TaskScheduler.runtimeScheduler(), permitsPerSecond, burst);
+    }
+
+    /**
+     * Sets the limit of a key. It applies once the current bucket of the key is dropped or the next
+     * time the key is used, whichever comes first.
+     */
+    public RateLimitedTaskScheduler<K> limit(K key, double permitsPerSecond, int burst) {
+        limits.put(key, new Limit(permitsPerSecond, burst));
+
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            synchronized (bucket) {
+                bucket.limit = limits.get(key);
+            }
+        }
+        return this;
+    }
+
+    public RateLimitedTaskScheduler<K> defaultLimit(double permitsPerSecond, int burst) {
+        this.defaultLimit = new Limit(permitsPerSecond, burst);
+        return this;
+    }
+
+    public TaskEntryFuture<Void> schedule(K key, Runnable runnable) {
+        return schedule(key, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public <V> TaskEntryFuture<V> schedule(K key, Callable<V> callable) {
+        return schedule(key, callable, null);
+    }
+
+    /**
+     * Schedules the callable once the bucket of the key has a token.
+     *
+     * @throws RejectedExecutionException if the entry could be released right away and the scheduler
+     *                                    rejected it. Entries released later fail their future instead.
+     */
+    public <V> TaskEntryFuture<V> schedule(K key, Callable<V> callable, Callback<V> callback) {
+        TaskEntry<V> entry = new TaskEntry<>(callable, callback, 0, 0);
+        sweep(System.nanoTime());
+
+        Bucket bucket;
+        while (true) {
+            bucket = buckets.computeIfAbsent(key, Bucket::new);
+
+            synchronized (bucket) {
+                if (bucket.removed) {
+                    continue;
+                }
+
+                // read under the lock, an earlier time would refill the bucket backwards
+                bucket.refill(System.nanoTime());
+                // while a release hands over, the entry would overtake the released ones
+                if (bucket.waiting.isEmpty() && !bucket.releaseScheduled && bucket.tokens >= 1) {
+                    bucket.tokens -= 1;
+                    break;
+                }
+
+                bucket.waiting.offer(entry);
+                if (!bucket.releaseScheduled) {
+                    scheduleRelease(bucket);
+                }
+                return entry.drop();
+            }
+        }
+
+        try {
+            return scheduler.schedule(entry);
+        } catch (RejectedExecutionException e) {
+            bucket.giveBack();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the tokens currently in the bucket of the key.
+     */
+    public double getAvailableTokens(K key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return limitOf(key).burst;
+        }
+
+        synchronized (bucket) {
+            bucket.refill(System.nanoTime());
+            return bucket.tokens;
+        }
+    }
+
+    /**
+     * @return the number of entries of the key which wait for a token.
+     */
+    public int getWaiting(K key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+
+        synchronized (bucket) {
+            return bucket.waiting.size();
+        }
+    }
+
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private void scheduleRelease(Bucket bucket) {
+        long delay = (long) Math.ceil((1 - bucket.tokens) / bucket.limit.tokensPerNano);
+        bucket.releaseScheduled = true;
+
+        // released by the timer, it does not go through the admission of the scheduler
+        scheduler.offerEntry(new ReleaseEntry(bucket, Math.max(0, delay)));
+    }
+
+    private void failWaiting(Bucket bucket, Throwable throwable) {
+        List<TaskEntry<?>> failed;
+        synchronized (bucket) {
+            failed = new ArrayList<>(bucket.waiting);
+            bucket.waiting.clear();
+            bucket.releaseScheduled = false;
+        }
+
+        for (TaskEntry<?> entry : failed) {
+            entry.fail(throwable);
+        }
+    }
+
+    private void release(Bucket bucket) {
+        List<TaskEntry<?>> released = new ArrayList<>();
+        long now = System.nanoTime();
+
+        synchronized (bucket) {
+            bucket.refill(now);
+
+            TaskEntry<?> entry;
+            while ((entry = bucket.waiting.peek()) != null) {
+                if (entry.task == null) {
+                    // cancelled while waiting, it does not need a token
+                    bucket.waiting.poll();
+                    continue;
+                }
+                if (bucket.tokens < 1) {
+                    break;
+                }
+
+                bucket.waiting.poll();
+                bucket.tokens -= 1;
+                released.add(entry);
+            }
+        }
+
+        // the release stays scheduled until the hand-over is done, new entries queue up behind it
+        for (TaskEntry<?> entry : released) {
+            try {
+                scheduler.schedule(entry);
+            } catch (RejectedExecutionException e) {
+                bucket.giveBack();
+                entry.fail(e);
+            }
+        }
+
+        synchronized (bucket) {
+            bucket.releaseScheduled = false;
+            if (!bucket.waiting.isEmpty()) {
+                scheduleRelease(bucket);
+            }
+        }
+    }
+
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+
+        buckets.values().removeIf(bucket -> {
+            synchronized (bucket) {
+                bucket.refill(now);
+                if (bucket.waiting.isEmpty() && !bucket.releaseScheduled && bucket.tokens >= bucket.limit.burst) {
+                    bucket.removed = true;
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    private Limit limitOf(K key) {
+        Limit limit = limits.get(key);
+        return limit != null ? limit : defaultLimit;
+    }
+
+    /**
+     * Hands the waiting entries of a bucket to the scheduler. It only runs other entries, so it is not
+     * counted in the metrics.
+     */
+    private final class ReleaseEntry extends TaskEntry<Void> {
+
+        private final Bucket bucket;
+
+        ReleaseEntry(Bucket bucket, long delayNanos) {
+            super(() -> {
+                release(bucket);
+                return null;
+            }, null, delayNanos, 0, TimeUnit.NANOSECONDS, 0, RepeatMode.FIXED_DELAY, CatchUpPolicy.COALESCE);
+            this.bucket = bucket;
+        }
+
+        @Override
+        boolean isRecorded() {
+            return false;
+        }
+
+        @Override
+        void abandon(Throwable throwable) {
+            // dropped by a shutdown, the waiting entries would be left behind for good
+            super.abandon(throwable);
+            failWaiting(bucket, throwable);
+        }
+
+        @Override
+        protected void fail(Throwable throwable) {
+            super.fail(throwable);
+            failWaiting(bucket, throwable);
+        }
+    }
+
+    private static final class Limit {
+
+        private final double tokensPerNano;
+        private final int burst;
+
+        Limit(double permitsPerSecond, int burst) {
+            if (permitsPerSecond <= 0 || burst <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond and burst must be greater than 0");
+            }
+            this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+        }
+    }
+
+    private final class Bucket {
+
+        private final Queue<TaskEntry<?>> waiting = new ArrayDeque<>();
+
+        private Limit limit;
+
+        private double tokens;
+
+        private long refilled = System.nanoTime();
+
+        private boolean releaseScheduled;
+
+        private boolean removed;
+
+        Bucket(K key) {
+            this.limit = limitOf(key);
+            this.tokens = limit.burst;
+        }
+
+        void refill(long now) {
+            // a time read before the last refill adds nothing
+            if (now - refilled <= 0) {
+                return;
+            }
+            tokens = Math.min(limit.burst, tokens + (now - refilled) * limit.tokensPerNano);
+            refilled = now;
+        }
+
+        /**
+         * Returns the token of an entry which the scheduler rejected.
+         */
+        synchronized void giveBack() {
+            tokens = Math.min(limit.burst, tokens + 1);
+        }
+    }
+
+}
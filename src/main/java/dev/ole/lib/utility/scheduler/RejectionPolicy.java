@@ -0,0 +1,32 @@
+package dev.ole.lib.utility.scheduler;
+
+/**
+ * Decides what {@link TaskScheduler#schedule(TaskEntry)} does when the scheduler's queue capacity is
+ * exhausted.
+ */
+public enum RejectionPolicy {
+
+    /**
+     * The entry is rejected with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    ABORT,
+
+    /**
+     * A due entry is run on the submitting thread, which slows the producer down. Entries with a
+     * delay are rejected like {@link #ABORT}, they must not run before their deadline.
+     */
+    CALLER_RUNS,
+
+    /**
+     * The oldest queued entry of the lowest lane is cancelled to make room for the new one. Only lanes
+     * at or below the lane of the new entry are considered; if none of them holds a queued entry, the
+     * new one is rejected.
+     */
+    DISCARD_OLDEST,
+
+    /**
+     * The submitting thread blocks until capacity is available or the block timeout elapsed.
+     */
+    BLOCK
+
+}
@@ -0,0 +1,16 @@
+package dev.ole.lib.utility.scheduler;
+
+public enum RepeatMode {
+
+    /**
+     * The next run is due one period after the previous run has finished.
+     */
+    FIXED_DELAY,
+
+    /**
+     * The runs are due on a fixed grid of periods starting at the first deadline, independent of
+     * how long each run takes. Missed grid points are handled by the entry's {@link CatchUpPolicy}.
+     */
+    FIXED_RATE
+
+}
@@ -0,0 +1,100 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on instrumentation of a {@link TaskScheduler}. All counters are striped, so recording never
+ * takes a lock on the submit or execution path.
+ */
+public class SchedulerMetrics {
+
+    final LongAdder submitted = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder discarded = new LongAdder();
+    final LongAdder completed = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LongAdder timedOut = new LongAdder();
+
+    final LatencyHistogram queueWait = new LatencyHistogram();
+    final LatencyHistogram executionTime = new LatencyHistogram();
+    final LatencyHistogram timerLateness = new LatencyHistogram();
+
+    /**
+     * @return the number of entries which were accepted by the scheduler.
+     */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the number of queued entries which were cancelled to make room for newer ones.
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /**
+     * @return the number of runs which finished without an exception, every repeat counts once.
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return the number of runs which the watchdog caught exceeding their execution timeout.
+     */
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    /**
+     * @return the time between an entry being queued as due and a thread starting to run it.
+     */
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * @return how late the timing wheel released delayed entries compared to their deadline.
+     */
+    public LatencyHistogram getTimerLateness() {
+        return timerLateness;
+    }
+
+    public void reset() {
+        submitted.reset();
+        rejected.reset();
+        discarded.reset();
+        completed.reset();
+        failed.reset();
+        timedOut.reset();
+        queueWait.reset();
+        executionTime.reset();
+        timerLateness.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulerMetrics{" + "submitted=" + getSubmittedCount()
+                + ", rejected=" + getRejectedCount()
+                + ", discarded=" + getDiscardedCount()
+                + ", completed=" + getCompletedCount()
+                + ", failed=" + getFailedCount()
+                + ", timedOut=" + getTimedOutCount()
+                + ", queueWait=" + queueWait
+                + ", executionTime=" + executionTime
+                + ", timerLateness=" + timerLateness + '}';
+    }
+}
@@ -0,0 +1,40 @@
+package dev.ole.lib.utility.scheduler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for a task run which took longer than the configured threshold (20 ms by default, it
+ * can be changed through the JFR settings of {@code dev.ole.lib.scheduler.SlowTask}).
+ */
+@Name("dev.ole.lib.scheduler.SlowTask")
+@Label("Slow Scheduler Task")
+@Category({"NettyLib", "TaskScheduler"})
+@Description("A TaskScheduler entry whose execution exceeded the threshold")
+@Threshold("20 ms")
+@StackTrace(false)
+final class SlowTaskEvent extends Event {
+
+    @Label("Scheduler")
+    String scheduler;
+
+    @Label("Task")
+    String task;
+
+    @Label("Lane")
+    String lane;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Failed")
+    boolean failed;
+
+}
@@ -1,24 +1,63 @@
 package dev.ole.lib.utility.scheduler;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class TaskEntry<T> {
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<TaskEntry, Semaphore> PERMIT_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(TaskEntry.class, Semaphore.class, "permit");
+
     private final TaskEntryFuture<T> future;
     protected volatile Callable<T> task;
     protected volatile T value = null;
     protected Callback<T> callback;
     protected long delayTimeOut, repeat, delay;
-    protected boolean completed = false;
+    protected volatile boolean completed = false;
+    protected long periodNanos;
+    protected RepeatMode repeatMode;
+    protected CatchUpPolicy catchUpPolicy;
+    protected volatile TaskLane lane = TaskLane.NORMAL;
+    protected volatile long executionTimeoutNanos;
+
+    volatile Semaphore permit;
+    volatile Executor affinity;
+    volatile long deadlineNanos;
+    volatile long readyNanos;
+    volatile HashedTimingWheel timingWheel;
+    // cancels a timer kept outside of the wheel
+    volatile Runnable timerCancel;
+    TaskEntry<?> wheelPrev, wheelNext;
+    int wheelBucket = -1;
+    long wheelTick;
 
     public TaskEntry(Callable<T> task, Callback<T> complete, long delay, long repeat) {
+        this(task, complete, delay, delay, TimeUnit.MILLISECONDS, repeat, RepeatMode.FIXED_DELAY, CatchUpPolicy.COALESCE);
+    }
+
+    public TaskEntry(Callable<T> task,
+                     Callback<T> complete,
+                     long delay,
+                     long period,
+                     TimeUnit unit,
+                     long repeat,
+                     RepeatMode repeatMode,
+                     CatchUpPolicy catchUpPolicy) {
 
         this.task = task;
         this.callback = complete;
-        this.delay = delay;
-        this.delayTimeOut = System.currentTimeMillis() + delay;
+        this.delay = unit.toMillis(delay);
+        this.periodNanos = unit.toNanos(period);
         this.repeat = repeat;
-        this.future = new TaskEntryFuture<>(this, false);
+        this.repeatMode = repeatMode;
+        this.catchUpPolicy = catchUpPolicy;
+        this.delayTimeOut = System.currentTimeMillis() + this.delay;
+        this.deadlineNanos = System.nanoTime() + unit.toNanos(delay);
+        this.future = new TaskEntryFuture<>(this);
     }
 
 
@@ -40,17 +79,47 @@ public class TaskEntry<T> {
             repeat--;
         }
 
-        if (repeat != 0) {
-            this.delayTimeOut = System.currentTimeMillis() + delay;
-        } else {
+        if (repeat != 0 && !advance(System.nanoTime())) {
+            repeat = 0;
+        }
+
+        if (repeat == 0) {
             completed = true;
+            future.complete(val);
+        }
+    }
 
-            if (future.waits) {
-                synchronized (future) {
-                    future.notifyAll();
-                }
-            }
+    /**
+     * Moves the deadline to the next run after a run finished.
+     *
+     * @return false if there is no next run.
+     */
+    protected boolean advance(long now) {
+        this.deadlineNanos = nextDeadline(now);
+        this.delayTimeOut = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(deadlineNanos - now);
+        return true;
+    }
+
+    private long nextDeadline(long now) {
+        if (repeatMode != RepeatMode.FIXED_RATE || periodNanos <= 0) {
+            return now + periodNanos;
+        }
+
+        long next = deadlineNanos + periodNanos;
+        if (next - now > 0 || catchUpPolicy == CatchUpPolicy.BURST) {
+            return next;
         }
+
+        // the last grid point which is not in the future
+        long passed = next + ((now - next) / periodNanos) * periodNanos;
+        return catchUpPolicy == CatchUpPolicy.SKIP ? passed + periodNanos : passed;
+    }
+
+    protected void fail(Throwable throwable) {
+        task = null;
+        repeat = 0;
+        completed = true;
+        future.completeExceptionally(throwable);
     }
 
 
@@ -69,6 +138,88 @@ public class TaskEntry<T> {
     }
 
 
+    public long getPeriod(TimeUnit unit) {
+        return unit.convert(periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    public RepeatMode getRepeatMode() {
+        return repeatMode;
+    }
+
+
+    public CatchUpPolicy getCatchUpPolicy() {
+        return catchUpPolicy;
+    }
+
+
+    public TaskLane getLane() {
+        return lane;
+    }
+
+
+    public void setLane(TaskLane lane) {
+        this.lane = lane != null ? lane : TaskLane.NORMAL;
+    }
+
+
+    public long getExecutionTimeout(TimeUnit unit) {
+        return unit.convert(executionTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets how long a single run may take before the watchdog of the scheduler reports it, 0 falls
+     * back to the execution timeout of the scheduler.
+     */
+    public void setExecutionTimeout(long timeout, TimeUnit unit) {
+        this.executionTimeoutNanos = unit.toNanos(Math.max(0, timeout));
+    }
+
+
+    protected void cancel() {
+        task = null;
+        repeat = 0;
+        releasePermit();
+
+        HashedTimingWheel wheel = timingWheel;
+        if (wheel != null) {
+            wheel.cancel(this);
+        }
+
+        Runnable timer = timerCancel;
+        if (timer != null) {
+            timer.run();
+        }
+    }
+
+    /**
+     * Completes the future exceptionally without clearing the task, so an entry which was taken out of
+     * a scheduler by a shutdown can still be handed to another one.
+     */
+    void abandon(Throwable throwable) {
+        releasePermit();
+        future.completeExceptionally(throwable);
+    }
+
+    /**
+     * @return false for internal entries which only run other entries, so the runs are not counted twice.
+     */
+    boolean isRecorded() {
+        return true;
+    }
+
+    void releasePermit() {
+        Semaphore semaphore = PERMIT_UPDATER.getAndSet(this, null);
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    boolean isDue() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+
     protected TaskEntryFuture<T> drop() {
         return future;
     }
@@ -2,72 +2,44 @@ package dev.ole.lib.utility.scheduler;
 
 import lombok.Getter;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lock-free future of a {@link TaskEntry}. It completes with the value of the last run of the entry,
+ * or exceptionally with the exception thrown by the task, and supports the usual
+ * {@link java.util.concurrent.CompletionStage} chaining. Cancelling it unlinks the entry from the
+ * scheduler, so neither a pending timer nor a repeat keeps it alive.
+ */
 @Getter
-public class TaskEntryFuture<T> implements Future<T> {
+public class TaskEntryFuture<T> extends CompletableFuture<T> {
 
     private final TaskEntry<T> entry;
-    protected volatile boolean waits;
 
-    public TaskEntryFuture(TaskEntry<T> entry, boolean waits) {
+    public TaskEntryFuture(TaskEntry<T> entry) {
         this.entry = entry;
-        this.waits = waits;
-    }
-
-    @Override
-    public boolean cancel(boolean pMayInterruptIfRunning) {
-
-        if (pMayInterruptIfRunning) {
-            entry.task = null;
-            entry.repeat = 0;
-        }
-        return true;
-    }
-
-    @Override
-    public boolean isCancelled() {
-        return entry.task == null;
     }
 
-
-    @Override
-    public boolean isDone() {
-        return entry.completed;
+    /**
+     * @deprecated waiting is handled by the {@link CompletableFuture}, the flag is ignored.
+     */
+    @Deprecated
+    public TaskEntryFuture(TaskEntry<T> entry, boolean waits) {
+        this(entry);
     }
 
-
     @Override
-    public synchronized T get() throws InterruptedException, ExecutionException {
-        waits = true;
-        while (!isDone()) {
-            this.wait();
+    public boolean cancel(boolean pMayInterruptIfRunning) {
+        boolean cancelled = super.cancel(pMayInterruptIfRunning);
+        // a finished entry is left alone, it may already be rescheduled or recycled
+        if (cancelled) {
+            entry.cancel();
         }
-
-        return entry.value;
+        return cancelled;
     }
 
-
     @Override
-    public synchronized T get(long pTimeout, TimeUnit pUnit) throws InterruptedException, ExecutionException, TimeoutException {
-
-        waits = true;
-        /*
-        long timeout = System.currentTimeMillis() + (pUnit.toMillis(pTimeout));
-
-        while (!isDone()) {
-            if (timeout < System.currentTimeMillis()) Thread.sleep(0, 200000);
-            else throw new TimeoutException();
-        }*/
-
-        while (!isDone()) {
-            this.wait(pUnit.toMillis(pTimeout));
-        }
-
-        return entry.value;
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new CompletableFuture<>();
     }
 
-}
\ No newline at end of file
+}
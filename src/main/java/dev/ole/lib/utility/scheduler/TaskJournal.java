@@ -0,0 +1,504 @@
+package dev.ole.lib.utility.scheduler;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import dev.ole.lib.gson.GsonRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent store for delayed tasks of a {@link TaskScheduler}. Tasks are journaled as descriptors
+ * (a registered type, Gson data and the due time), so they can be scheduled again with their original
+ * due times after a restart.
+ * <p>
+ * The journal is an append-only, memory-mapped file of checksummed records. Appending only copies the
+ * record into the mapping; the dirty range is forced to disk on the sync cadence, so a descriptor is
+ * durable once the next sync ran. Records of finished tasks are dropped by compaction, which rewrites
+ * the live descriptors into a new file and swaps it in atomically. A torn record at the end of the
+ * file, left by a crash during an append, ends the journal on load.
+ */
+public class TaskJournal implements Closeable {
+
+    private static final int MAGIC = 0x544A524E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private static final byte ADD = 1;
+    private static final byte DONE = 2;
+
+    // the descriptor itself needs no adapters, so loading a journal does not build the shared Gson early
+    private static final Gson DESCRIPTOR_GSON = new Gson();
+
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private final Path file;
+    private final TaskScheduler scheduler;
+    private final Map<String, Callback<JsonElement>> handlers = new ConcurrentHashMap<>();
+    private final Map<Long, Descriptor> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final TaskEntryFuture<Void> syncTask;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private int syncedPosition;
+    private long deadRecords;
+    private boolean closed;
+
+    public TaskJournal(Path file, TaskScheduler scheduler) throws IOException {
+        this(file, scheduler, 100, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens or creates the journal. Pending descriptors are loaded right away, but only scheduled by
+     * {@link #recover()}, once their handlers are registered.
+     *
+     * @param syncInterval how often appended records are forced to disk.
+     */
+    public TaskJournal(Path file, TaskScheduler scheduler, long syncInterval, TimeUnit timeUnit) throws IOException {
+        this.file = file;
+        this.scheduler = scheduler;
+
+        open();
+        load();
+
+        this.syncTask = scheduler.scheduleWithFixedDelay(this::syncQuietly, syncInterval, syncInterval, timeUnit);
+    }
+
+    /**
+     * @return the Gson the data of the descriptors is written with, the shared one of {@link GsonRegistry}.
+     */
+    public static Gson getGson() {
+        return GsonRegistry.getGson();
+    }
+
+    /**
+     * Registers the handler which runs the descriptors of the given type.
+     */
+    public TaskJournal register(String type, Callback<JsonElement> handler) {
+        handlers.put(type, handler);
+        return this;
+    }
+
+    /**
+     * Schedules all pending descriptors which have a registered handler, with their original due times.
+     * Overdue descriptors run right away. Descriptors without a handler stay in the journal.
+     *
+     * @return the number of scheduled descriptors.
+     */
+    public int recover() {
+        int recovered = 0;
+        for (Descriptor descriptor : pending.values()) {
+            if (descriptor.future != null) {
+                continue;
+            }
+
+            if (!handlers.containsKey(descriptor.type)) {
+                scheduler.getLogger().log(Level.WARNING, "No handler registered for journaled task type " + descriptor.type + " in " + file);
+                continue;
+            }
+
+            submit(descriptor);
+            recovered++;
+        }
+        return recovered;
+    }
+
+    public TaskEntryFuture<Void> schedule(String type, Object data, long delay, TimeUnit timeUnit) {
+        return schedule(type, data, Instant.now().plusMillis(timeUnit.toMillis(delay)));
+    }
+
+    /**
+     * Journals the descriptor and schedules it. The descriptor is removed from the journal once the
+     * task completed, failed or was cancelled, but not if it was dropped by a scheduler shutdown.
+     *
+     * @throws IllegalArgumentException if no handler is registered for the type.
+     */
+    public TaskEntryFuture<Void> schedule(String type, Object data, Instant due) {
+        if (!handlers.containsKey(type)) {
+            throw new IllegalArgumentException("No handler registered for journaled task type " + type);
+        }
+
+        Descriptor descriptor = new Descriptor(nextId.getAndIncrement(), type, getGson().toJsonTree(data), due.toEpochMilli());
+        byte[] json = DESCRIPTOR_GSON.toJson(descriptor).getBytes(StandardCharsets.UTF_8);
+
+        pending.put(descriptor.id, descriptor);
+        append(ADD, json, 0);
+
+        try {
+            return submit(descriptor);
+        } catch (RuntimeException e) {
+            finish(descriptor);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the descriptors which did not complete yet, including the ones without a handler.
+     */
+    public Collection<Descriptor> getPending() {
+        return Collections.unmodifiableCollection(pending.values());
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Forces all appended records to disk and compacts the journal if most of its records are dead.
+     */
+    public void sync() throws IOException {
+        boolean compact;
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            // forced under the lock, a remap or compaction unmaps the buffer
+            if (writePosition > syncedPosition) {
+                buffer.force(syncedPosition, writePosition - syncedPosition);
+                syncedPosition = writePosition;
+            }
+            compact = deadRecords >= COMPACT_MIN_RECORDS && deadRecords > pending.size();
+        }
+
+        if (compact) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the live descriptors into a new file and atomically replaces the journal with it.
+     */
+    public synchronized void compact() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        Collection<Descriptor> live = new ArrayList<>(pending.values());
+
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                   StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            target.write(header);
+
+            for (Descriptor descriptor : live) {
+                target.write(record(ADD, DESCRIPTOR_GSON.toJson(descriptor).getBytes(StandardCharsets.UTF_8), 0));
+            }
+            target.force(true);
+        }
+
+        // the old file stays usable until the compacted one replaced it
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel oldChannel = channel;
+        MappedByteBuffer oldBuffer = buffer;
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            // the old mapping belongs to the replaced file, appending to it would be lost
+            closed = true;
+            buffer = null;
+            if (channel != oldChannel) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        } finally {
+            unmap(oldBuffer);
+            oldChannel.close();
+        }
+        writePosition = HEADER_SIZE;
+        skipRecords();
+        syncedPosition = writePosition;
+        deadRecords = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncTask.cancel(false);
+        sync();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unmap(buffer);
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    private TaskEntryFuture<Void> submit(Descriptor descriptor) {
+        Callback<JsonElement> handler = handlers.get(descriptor.type);
+        long delay = Math.max(0, descriptor.due - System.currentTimeMillis());
+
+        TaskEntryFuture<Void> future = scheduler.schedule(() -> handler.call(descriptor.data), delay);
+        descriptor.future = future;
+
+        future.whenComplete((value, throwable) -> {
+            if (throwable instanceof RejectedExecutionException && scheduler.isShutdown()) {
+                // dropped by the shutdown, it has to run again after the restart
+                descriptor.future = null;
+                return;
+            }
+            finish(descriptor);
+        });
+        return future;
+    }
+
+    private void finish(Descriptor descriptor) {
+        if (pending.remove(descriptor.id, descriptor)) {
+            append(DONE, null, descriptor.id);
+        }
+    }
+
+    private synchronized void append(byte kind, byte[] json, long id) {
+        if (closed) {
+            throw new IllegalStateException("Task journal " + file + " is closed");
+        }
+
+        ByteBuffer record = record(kind, json, id);
+        try {
+            ensureCapacity(record.remaining());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        buffer.put(writePosition, record, 0, record.remaining());
+        writePosition += record.remaining();
+
+        if (kind == DONE) {
+            deadRecords += 2;
+        }
+    }
+
+    private static ByteBuffer record(byte kind, byte[] json, long id) {
+        int length = 1 + (kind == ADD ? json.length : Long.BYTES);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+
+        record.position(RECORD_HEADER_SIZE).put(kind);
+        if (kind == ADD) {
+            record.put(json);
+        } else {
+            record.putLong(id);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+        return record.rewind();
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (writePosition + length <= buffer.capacity()) {
+            return;
+        }
+
+        long capacity = buffer.capacity();
+        while (writePosition + length > capacity) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Task journal " + file + " exceeds 2 GiB, compact it");
+        }
+
+        // force what the old mapping holds, the new one continues from the same file
+        MappedByteBuffer old = buffer;
+        old.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        unmap(old);
+    }
+
+    /**
+     * Releases the mapping right away instead of once the buffer is collected, so the replaced mappings
+     * of a growing journal do not pile up. The buffer must not be touched afterwards. Where the JDK does
+     * not allow it, the mapping is left to the garbage collector.
+     */
+    private static void unmap(MappedByteBuffer mapped) {
+        if (INVOKE_CLEANER == null || mapped == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) mapped);
+        } catch (Throwable ignored) {
+            // left to the garbage collector
+        }
+    }
+
+    /**
+     * @return sun.misc.Unsafe#invokeCleaner of the jdk.unsupported module bound to the Unsafe instance,
+     * the supported way to unmap a buffer since Java 9, or null if it is not accessible.
+     */
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            MethodHandle invokeCleaner = MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class));
+            return invokeCleaner.bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        boolean created = size < HEADER_SIZE;
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+        if (created) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC) {
+            unmap(buffer);
+            buffer = null;
+            channel.close();
+            throw new IOException(file + " is not a task journal");
+        }
+    }
+
+    private void load() {
+        writePosition = HEADER_SIZE;
+        long maxId = 0;
+
+        int position;
+        while ((position = nextRecord(writePosition)) != -1) {
+            byte kind = buffer.get(writePosition + RECORD_HEADER_SIZE);
+            int length = position - writePosition - RECORD_HEADER_SIZE;
+
+            if (kind == ADD) {
+                byte[] json = new byte[length - 1];
+                buffer.get(writePosition + RECORD_HEADER_SIZE + 1, json);
+                Descriptor descriptor = DESCRIPTOR_GSON.fromJson(new String(json, StandardCharsets.UTF_8), Descriptor.class);
+                pending.put(descriptor.id, descriptor);
+                maxId = Math.max(maxId, descriptor.id);
+            } else if (kind == DONE) {
+                long id = buffer.getLong(writePosition + RECORD_HEADER_SIZE + 1);
+                pending.remove(id);
+                maxId = Math.max(maxId, id);
+                deadRecords += 2;
+            }
+            writePosition = position;
+        }
+
+        syncedPosition = writePosition;
+        nextId.set(maxId + 1);
+    }
+
+    private void skipRecords() {
+        int position;
+        while ((position = nextRecord(writePosition)) != -1) {
+            writePosition = position;
+        }
+    }
+
+    /**
+     * @return the position after the valid record at the given position, or -1 if the journal ends there.
+     */
+    private int nextRecord(int position) {
+        if (position + RECORD_HEADER_SIZE > buffer.capacity()) {
+            return -1;
+        }
+
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_SIZE) {
+            return -1;
+        }
+
+        byte[] body = new byte[length];
+        buffer.get(position + RECORD_HEADER_SIZE, body);
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == buffer.getInt(position + 4) ? position + RECORD_HEADER_SIZE + length : -1;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            scheduler.getLogger().log(Level.SEVERE, "Error on syncing task journal " + file, e);
+        }
+    }
+
+    /**
+     * Journaled form of a task: the handler type, its data and the due time in epoch milliseconds.
+     */
+    public static final class Descriptor {
+
+        private final long id;
+        private final String type;
+        private final JsonElement data;
+        private final long due;
+
+        private transient volatile TaskEntryFuture<Void> future;
+
+        Descriptor(long id, String type, JsonElement data, long due) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+            this.due = due;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public JsonElement getData() {
+            return data;
+        }
+
+        public Instant getDue() {
+            return Instant.ofEpochMilli(due);
+        }
+
+        /**
+         * @return the future of the scheduled task, or null if the descriptor is not scheduled.
+         */
+        public TaskEntryFuture<Void> getFuture() {
+            return future;
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package dev.ole.lib.utility.scheduler;
+
+/**
+ * QoS class of a {@link TaskEntry}. Workers serve the lanes by smooth weighted round robin, so a
+ * lane gets its share of {@code weight / sum of weights of all non-empty lanes} and no lane starves.
+ */
+public enum TaskLane {
+
+    HIGH(8),
+    NORMAL(4),
+    LOW(1);
+
+    private final int weight;
+
+    TaskLane(int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+}
@@ -1,12 +1,24 @@
 package dev.ole.lib.utility.scheduler;
 
+import jdk.jfr.FlightRecorder;
+
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +26,23 @@ public class TaskScheduler {
 
     private static final TaskScheduler RUNTIME_SCHEDULER = new TaskScheduler(Runtime.getRuntime().availableProcessors());
 
+    private static final long TIMER_TICK_MILLIS = 1;
+
+    private static final int TIMER_WHEEL_SIZE = 512;
+
+    protected static final int RUNNING = 0, SHUTDOWN = 1, STOP = 2;
+
+    private static final long POOL_CONTROL_MILLIS = 50;
+
+    private static final int POOL_GROW_SAMPLES = 2;
+
+    // a queue wait this many times above the target sizes the pool for the backlog at once
+    private static final int POOL_JUMP_FACTOR = 4;
+
+    private static final int POOL_SHRINK_SAMPLES = 100;
+
+    private static final long WATCHDOG_MILLIS = 100;
+
     protected final ThreadGroup threadGroup = new ThreadGroup("TaskScheduler-Group-" + new Random().nextLong());
 
     protected final AtomicLong threadId = new AtomicLong(0);
@@ -30,10 +59,58 @@ public class TaskScheduler {
 
     protected Logger logger;
 
-    protected Deque<TaskEntry<?>> taskEntries = new ConcurrentLinkedDeque<>();
+    protected final LaneQueue taskEntries = new LaneQueue();
 
     protected Collection<Worker> workers = new ConcurrentLinkedQueue<>();
 
+    protected final Deque<Worker> idleWorkers = new ConcurrentLinkedDeque<>();
+
+    protected volatile HashedTimingWheel timingWheel;
+
+    protected volatile boolean workStealing = false;
+
+    protected volatile ThreadFactory virtualThreadFactory;
+
+    protected volatile Semaphore capacity;
+
+    protected volatile int queueCapacity = -1;
+
+    protected volatile RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+    protected volatile long blockTimeoutNanos;
+
+    protected final SchedulerMetrics metrics = new SchedulerMetrics();
+
+    protected volatile int state = RUNNING;
+
+    protected final AtomicInteger activeVirtualTasks = new AtomicInteger();
+
+    protected final CompletableFuture<Void> termination = new CompletableFuture<>();
+
+    protected final AtomicInteger workerCount = new AtomicInteger();
+
+    protected volatile int coreThreads = 0;
+
+    protected volatile int targetThreads;
+
+    protected volatile long targetQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+    protected final Map<Object, CoalescedTaskEntry> coalescedEntries = new ConcurrentHashMap<>();
+
+    protected volatile long executionTimeoutNanos;
+
+    protected volatile boolean interruptOverrunTasks = false;
+
+    protected volatile boolean replaceStuckWorkers = false;
+
+    private volatile TaskEntry<Void> poolController;
+
+    private double poolUtilization;
+
+    private int growSamples, shrinkSamples;
+
+    private volatile TaskEntry<Void> watchdog;
+
 
     public TaskScheduler() {
         this(Runtime.getRuntime().availableProcessors());
@@ -81,10 +158,13 @@ public class TaskScheduler {
         this.threadLiveMillis = threadLiveMillis;
 
         this.maxThreads = maxThreads <= 0 ? Runtime.getRuntime().availableProcessors() : maxThreads;
+        this.targetThreads = Math.min(this.maxThreads, Runtime.getRuntime().availableProcessors());
         this.logger = logger != null ? logger : Logger.getLogger("TaskScheduler-Logger@" + threadGroup.getName());
 
         if (entries != null) {
-            taskEntries.addAll(entries);
+            for (TaskEntry<?> entry : entries) {
+                offerEntry(entry);
+            }
         }
     }
 
@@ -164,6 +244,14 @@ public class TaskScheduler {
         return RUNTIME_SCHEDULER;
     }
 
+    public static TaskScheduler virtualThreadScheduler() {
+        return virtualThreadScheduler(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static TaskScheduler virtualThreadScheduler(int maxThreads) {
+        return new TaskScheduler(maxThreads).virtualThreads(true);
+    }
+
     public TaskEntryFuture<Void> schedule(Runnable runnable) {
         return schedule(runnable, (Callback<Void>) null);
     }
@@ -181,46 +269,547 @@ public class TaskScheduler {
     }
 
     public <V> TaskEntryFuture<V> schedule(TaskEntry<V> taskEntry) {
+        if (!admit(taskEntry)) {
+            return taskEntry.drop();
+        }
+        return offerEntry(taskEntry);
+    }
+
+    /**
+     * Schedules the entry only if the queue capacity allows it, without applying the rejection policy.
+     *
+     * @return the future of the entry, or null if the queue is full.
+     */
+    public <V> TaskEntryFuture<V> trySchedule(TaskEntry<V> taskEntry) {
+        checkRunning();
+
+        Semaphore semaphore = capacity;
+        if (semaphore != null) {
+            if (!semaphore.tryAcquire()) {
+                metrics.rejected.increment();
+                return null;
+            }
+            taskEntry.permit = semaphore;
+        }
+        metrics.submitted.increment();
         return offerEntry(taskEntry);
     }
 
-    private <V> TaskEntryFuture<V> offerEntry(TaskEntry<V> entry) {
-        this.taskEntries.offer(entry);
-        checkEnougthThreads();
+    public TaskEntryFuture<Void> trySchedule(Runnable runnable) {
+        return trySchedule(new VoidTaskEntry(runnable, null, 0, 0));
+    }
+
+    public <V> TaskEntryFuture<V> trySchedule(Callable<V> callable) {
+        return trySchedule(new TaskEntry<>(callable, null, 0, 0));
+    }
+
+    /**
+     * Acquires a queue slot for a new entry according to the rejection policy.
+     *
+     * @return false if the entry was already run by the calling thread.
+     * @throws RejectedExecutionException if the entry was rejected.
+     */
+    private boolean admit(TaskEntry<?> entry) {
+        checkRunning();
+
+        Semaphore semaphore = capacity;
+        if (semaphore == null || semaphore.tryAcquire()) {
+            entry.permit = semaphore;
+            metrics.submitted.increment();
+            return true;
+        }
+
+        switch (rejectionPolicy) {
+            case CALLER_RUNS:
+                if (entry.isDue()) {
+                    metrics.submitted.increment();
+                    entry.readyNanos = System.nanoTime();
+                    runEntry(entry);
+                    return false;
+                }
+                break;
+
+            case DISCARD_OLDEST:
+                // a new entry never pushes out one of a higher lane
+                for (int i = LaneQueue.LANES.length - 1; i >= entry.lane.ordinal(); i--) {
+                    TaskEntry<?> oldest;
+                    while ((oldest = pollPermitted(i)) != null) {
+                        if (oldest.drop().cancel(false)) {
+                            metrics.discarded.increment();
+                        }
+                        oldest.releasePermit();
+                        if (semaphore.tryAcquire()) {
+                            entry.permit = semaphore;
+                            metrics.submitted.increment();
+                            return true;
+                        }
+                    }
+                }
+                break;
+
+            case BLOCK:
+                try {
+                    if (semaphore.tryAcquire(blockTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                        entry.permit = semaphore;
+                        metrics.submitted.increment();
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        metrics.rejected.increment();
+        throw new RejectedExecutionException("Task queue of " + name + " is full (capacity " + queueCapacity + ')');
+    }
+
+    /**
+     * Removes the oldest queued entry of the lane which holds a permit, from the shared queue or
+     * else from the local queues of the workers.
+     */
+    private TaskEntry<?> pollPermitted(int lane) {
+        TaskEntry<?> entry = taskEntries.pollPermitted(lane);
+        if (entry != null) {
+            return entry;
+        }
+        for (Worker worker : workers) {
+            if ((entry = worker.localEntries.pollPermitted(lane)) != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void checkRunning() {
+        if (state != RUNNING) {
+            metrics.rejected.increment();
+            throw shutdownException();
+        }
+    }
+
+    public TaskEntryFuture<Void> schedule(Runnable runnable, TaskLane lane) {
+        return schedule(runnable, lane, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public TaskEntryFuture<Void> schedule(Runnable runnable, TaskLane lane, long delay, TimeUnit timeUnit) {
+        TaskEntry<Void> entry = new VoidTaskEntry(runnable, null, timeUnit.toMillis(delay), 0);
+        entry.setLane(lane);
+        return schedule(entry);
+    }
+
+    public <V> TaskEntryFuture<V> schedule(Callable<V> callable, TaskLane lane) {
+        return schedule(callable, lane, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public <V> TaskEntryFuture<V> schedule(Callable<V> callable, TaskLane lane, long delay, TimeUnit timeUnit) {
+        TaskEntry<V> entry = new TaskEntry<>(callable, null, timeUnit.toMillis(delay), 0);
+        entry.setLane(lane);
+        return schedule(entry);
+    }
+
+    /**
+     * Queues an entry without admission, for entries which already passed it (repeats, continuations).
+     */
+    <V> TaskEntryFuture<V> offerEntry(TaskEntry<V> entry) {
+        if (entry.isDue()) {
+            if (state < STOP) {
+                offerDue(entry);
+                return entry.drop();
+            }
+        } else if (offerDelayed(entry)) {
+            return entry.drop();
+        }
+
+        // a shut down scheduler still drains due entries, but no longer keeps timers
+        entry.abandon(shutdownException());
         return entry.drop();
     }
 
-    private void checkEnougthThreads() {
-        Worker worker = hasFreeWorker();
-        if (getCurrentThreadSize() < maxThreads || (dynamicWorkerCount && maxThreads > 1 && taskEntries.size() > getCurrentThreadSize() && taskEntries
-                .size() <= (getMaxThreads() * 2)) && worker == null) {
-            newWorker();
+    /**
+     * Keeps a delayed entry until it is due, then hands it to {@link #expireEntry(TaskEntry)}.
+     *
+     * @return false if the scheduler no longer keeps timers.
+     */
+    protected boolean offerDelayed(TaskEntry<?> entry) {
+        HashedTimingWheel wheel = timingWheel();
+        if (wheel == null) {
+            return false;
         }
+        wheel.schedule(entry);
+        return true;
     }
 
-    private Worker hasFreeWorker() {
+    /**
+     * Hands a due entry to the workers.
+     */
+    protected void offerDue(TaskEntry<?> entry) {
+        Worker worker = currentWorker();
+        entry.readyNanos = System.nanoTime();
+
+        if (workStealing && worker != null) {
+            worker.localEntries.offer(entry);
+        } else {
+            this.taskEntries.offer(entry);
+        }
+
+        if (state >= STOP) {
+            // raced with shutdownNow, which may have drained the queues already
+            abandonAll(drainQueued());
+            return;
+        }
+        signalWorker();
+    }
+
+    /**
+     * Publishes already admitted entries in bulk: due entries with one queue operation per lane,
+     * delayed ones with one hand-over to the timing wheel, then wakes up to one worker per due entry.
+     */
+    protected void offerAll(List<TaskEntry<?>>[] dueEntries, List<TaskEntry<?>> delayedEntries) {
+        Worker worker = currentWorker();
+        LaneQueue queue = workStealing && worker != null ? worker.localEntries : taskEntries;
+        long now = System.nanoTime();
+
+        int due = 0;
+        for (int i = 0; i < dueEntries.length; i++) {
+            for (TaskEntry<?> entry : dueEntries[i]) {
+                entry.readyNanos = now;
+            }
+            queue.offerAll(i, dueEntries[i]);
+            due += dueEntries[i].size();
+        }
+
+        if (!delayedEntries.isEmpty()) {
+            HashedTimingWheel wheel = timingWheel();
+            if (wheel != null) {
+                wheel.schedule(delayedEntries);
+            } else {
+                for (TaskEntry<?> entry : delayedEntries) {
+                    entry.abandon(shutdownException());
+                }
+            }
+        }
+
+        if (state >= STOP) {
+            abandonAll(drainQueued());
+        } else if (due > 0) {
+            signalWorkers(due);
+        }
+    }
+
+    private void signalWorkers(int count) {
+        Worker worker;
+        while (count > 0 && (worker = idleWorkers.poll()) != null) {
+            worker.idle = false;
+            LockSupport.unpark(worker);
+            count--;
+        }
+
+        for (; count > 0; count--) {
+            if (!addWorker()) {
+                break;
+            }
+        }
+    }
+
+    private void signalWorker() {
+        Worker worker = idleWorkers.poll();
+
+        if (worker != null) {
+            worker.idle = false;
+            LockSupport.unpark(worker);
+        } else {
+            addWorker();
+        }
+    }
+
+    protected boolean hasQueuedEntries() {
+        if (!taskEntries.isEmpty()) {
+            return true;
+        }
+
         for (Worker worker : workers) {
-            if (worker.isFreeWorker()) {
-                return worker;
+            if (!worker.localEntries.isEmpty()) {
+                return true;
             }
         }
+        return false;
+    }
 
+    private Worker currentWorker() {
+        if (Thread.currentThread() instanceof Worker worker && worker.scheduler == this) {
+            return worker;
+        }
         return null;
     }
 
+    void expireEntry(TaskEntry<?> entry) {
+        if (entry == poolController) {
+            adjustPool();
+            rearm(entry, POOL_CONTROL_MILLIS);
+            return;
+        }
+
+        if (entry == watchdog) {
+            checkWorkers();
+            rearm(entry, WATCHDOG_MILLIS);
+            return;
+        }
+
+        if (entry instanceof CoalescedTaskEntry coalesced && coalesced.quietNanos - System.nanoTime() > 0) {
+            // debounced again while waiting in the wheel
+            coalesced.deadlineNanos = coalesced.quietNanos;
+            offerEntry(coalesced);
+            return;
+        }
+
+        metrics.timerLateness.record(System.nanoTime() - entry.deadlineNanos);
+        offerDue(entry);
+    }
+
+    /**
+     * @return the timing wheel, created on first use, or null once the scheduler is shut down.
+     */
+    protected HashedTimingWheel timingWheel() {
+        HashedTimingWheel wheel = timingWheel;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = timingWheel;
+                if (wheel == null && state == RUNNING) {
+                    wheel = new HashedTimingWheel(threadGroup,
+                                                  threadGroup.getName() + "#Timer",
+                                                  TIMER_TICK_MILLIS,
+                                                  TimeUnit.MILLISECONDS,
+                                                  TIMER_WHEEL_SIZE,
+                                                  this::expireEntry,
+                                                  logger);
+                    timingWheel = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+
+    /**
+     * Starts a new worker if the pool is below its limit: the maximum thread count, or with a dynamic
+     * worker count the target size of the pool controller. Core threads are always allowed.
+     *
+     * @return false if no worker was started.
+     */
+    private boolean addWorker() {
+        if (state >= STOP) {
+            return false;
+        }
+
+        int limit = Math.max(coreThreads, dynamicWorkerCount ? targetThreads : maxThreads);
+        int count;
+        do {
+            count = workerCount.get();
+            if (count >= limit) {
+                return false;
+            }
+        } while (!workerCount.compareAndSet(count, count + 1));
+
+        if (dynamicWorkerCount && poolController == null) {
+            startPoolController();
+        }
+
+        startWorker();
+        return true;
+    }
+
+    private void rearm(TaskEntry<?> entry, long delayMillis) {
+        entry.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+
+        HashedTimingWheel wheel = timingWheel;
+        if (wheel != null) {
+            wheel.schedule(entry);
+        }
+    }
+
+    private synchronized void startPoolController() {
+        if (poolController != null) {
+            return;
+        }
+
+        HashedTimingWheel wheel = timingWheel();
+        if (wheel == null) {
+            return;
+        }
+
+        // never handed to a worker, the timer thread runs it in expireEntry
+        TaskEntry<Void> controller = new TaskEntry<>(() -> null, null, POOL_CONTROL_MILLIS, -1);
+        poolController = controller;
+        wheel.schedule(controller);
+    }
+
+    private synchronized void startWatchdog() {
+        if (watchdog != null) {
+            return;
+        }
+
+        HashedTimingWheel wheel = timingWheel();
+        if (wheel == null) {
+            return;
+        }
+
+        // runs on the timer thread like the pool controller
+        TaskEntry<Void> entry = new TaskEntry<>(() -> null, null, WATCHDOG_MILLIS, -1);
+        watchdog = entry;
+        wheel.schedule(entry);
+    }
+
+    /**
+     * Looks for platform workers whose current run exceeds its execution timeout. Each overrun is
+     * reported once: the future fails with a {@link TimeoutException}, the stack of the worker is
+     * logged and, if configured, the worker is interrupted and its slot in the pool handed to a new
+     * worker. The run itself cannot be stopped, a task which ignores the interrupt keeps its thread.
+     */
+    private void checkWorkers() {
+        long defaultTimeout = executionTimeoutNanos;
+
+        for (Worker worker : workers) {
+            TaskEntry<?> entry = worker.taskEntry;
+            if (entry == null || worker.overrun) {
+                continue;
+            }
+
+            long timeout = entry.executionTimeoutNanos > 0 ? entry.executionTimeoutNanos : defaultTimeout;
+            long elapsed = System.nanoTime() - worker.runStartNanos;
+            if (timeout <= 0 || elapsed < timeout || worker.taskEntry != entry) {
+                continue;
+            }
+
+            worker.overrun = true;
+            metrics.timedOut.increment();
+
+            String message = "Task exceeded its execution timeout of " + TimeUnit.NANOSECONDS.toMillis(timeout)
+                    + "ms on Thread [" + worker.getName() + "], running for " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms";
+            Throwable stack = new Throwable("Stack of Thread [" + worker.getName() + ']');
+            stack.setStackTrace(worker.getStackTrace());
+            logger.log(Level.WARNING, message, stack);
+
+            entry.fail(new TimeoutException(message));
+
+            if (interruptOverrunTasks) {
+                worker.interrupt();
+            }
+
+            if (replaceStuckWorkers && state == RUNNING && worker.released.compareAndSet(false, true)) {
+                // the stuck worker exits once its run returns, until then it no longer counts
+                workerCount.decrementAndGet();
+                if (hasQueuedEntries()) {
+                    signalWorker();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the target pool size between the core and the maximum thread count. The pool grows while
+     * entries wait longer than the target queue wait and the workers are busy, and shrinks by one
+     * worker at a time once both stayed low for a while. The different thresholds and sample counts
+     * keep a bursty load from creating and retiring threads over and over. A queue wait far above the
+     * target grows the pool on the same sample, straight to the size which brings the wait back to the
+     * target if the runs keep their length.
+     */
+    private void adjustPool() {
+        if (state != RUNNING) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long wait = taskEntries.oldestWaitNanos(now);
+        int busy = 0, size = 0;
+        for (Worker worker : workers) {
+            wait = Math.max(wait, worker.localEntries.oldestWaitNanos(now));
+            if (worker.taskEntry != null) {
+                busy++;
+            }
+            size++;
+        }
+
+        double utilization = size == 0 ? 0 : (double) busy / size;
+        poolUtilization += (utilization - poolUtilization) * 0.3;
+
+        int target = targetThreads;
+        int floor = Math.max(1, coreThreads);
+        boolean saturated = poolUtilization >= 0.75 || utilization >= 1;
+        boolean far = wait > targetQueueWaitNanos * POOL_JUMP_FACTOR;
+
+        if (wait > targetQueueWaitNanos && saturated && workerCount.get() >= target) {
+            shrinkSamples = 0;
+            if ((far || ++growSamples >= POOL_GROW_SAMPLES) && target < maxThreads) {
+                growSamples = 0;
+                long grown = target + Math.max(1, target / 2);
+                if (far) {
+                    // the wait shrinks about in proportion to the threads serving the queue
+                    grown = Math.max(grown, (long) Math.ceil((double) target * wait / Math.max(1, targetQueueWaitNanos)));
+                }
+                targetThreads = (int) Math.min(maxThreads, grown);
+
+                long missing = Math.min(targetThreads - workerCount.get(), getQueueDepth());
+                for (; missing > 0; missing--) {
+                    if (!addWorker()) {
+                        break;
+                    }
+                }
+            }
+
+        } else if (wait < targetQueueWaitNanos / 4 && poolUtilization < 0.5) {
+            growSamples = 0;
+            if (++shrinkSamples >= POOL_SHRINK_SAMPLES && target > floor) {
+                shrinkSamples = 0;
+                targetThreads = target - 1;
+
+                // an idle worker above the new target retires once it wakes up
+                Worker worker = idleWorkers.poll();
+                if (worker != null) {
+                    worker.idle = false;
+                    LockSupport.unpark(worker);
+                }
+            }
+
+        } else {
+            growSamples = 0;
+            shrinkSamples = 0;
+        }
+    }
+
     public int getCurrentThreadSize() {
-        return this.workers.size();
+        return workerCount.get();
     }
 
     public int getMaxThreads() {
         return maxThreads;
     }
 
+    /**
+     * Starts a new worker regardless of the pool limits.
+     */
     protected void newWorker() {
+        if (state >= STOP) {
+            return;
+        }
+
+        workerCount.incrementAndGet();
+        startWorker();
+    }
+
+    private void startWorker() {
         Worker worker = new Worker();
         workers.add(worker);
 
-        worker.start();
+        try {
+            worker.start();
+        } catch (Throwable throwable) {
+            workers.remove(worker);
+            workerCount.decrementAndGet();
+            throw throwable;
+        }
     }
 
     public TaskEntryFuture<Void> schedule(Runnable runnable, Date timeout) {
@@ -296,7 +885,7 @@ public class TaskScheduler {
     }
 
     public TaskEntryFuture<Void> schedule(Runnable runnable, Callback<Void> callback, long delay, TimeUnit timeUnit) {
-        return schedule(runnable, (Callback<Void>) null, timeUnit.toMillis(delay));
+        return schedule(runnable, callback, timeUnit.toMillis(delay));
     }
 
     public TaskEntryFuture<Void> schedule(Runnable runnable, Date timeout, long repeats) {
@@ -352,15 +941,15 @@ public class TaskScheduler {
     }
 
     public <V> TaskEntryFuture<V> schedule(Callable<V> callable, Callback<V> callback, LocalDateTime localDateTime, long repeats) {
-        return schedule(callable, callback, localDateTime.atZone(ZoneId.systemDefault()), 0);
+        return schedule(callable, callback, localDateTime.atZone(ZoneId.systemDefault()), repeats);
     }
 
     public <V> TaskEntryFuture<V> schedule(Callable<V> callable, Callback<V> callback, ZonedDateTime zonedDateTime, long repeats) {
-        return schedule(callable, callback, zonedDateTime.toInstant(), 0);
+        return schedule(callable, callback, zonedDateTime.toInstant(), repeats);
     }
 
     public <V> TaskEntryFuture<V> schedule(Callable<V> callable, Callback<V> callback, Instant instant, long repeats) {
-        return schedule(callable, callback, instant.toEpochMilli(), 0);
+        return schedule(callable, callback, instant.toEpochMilli() - System.currentTimeMillis(), repeats);
     }
 
     public <V> TaskEntryFuture<V> schedule(Callable<V> callable, LocalDateTime localDateTime) {
@@ -407,42 +996,610 @@ public class TaskScheduler {
         return schedule(callable, callback, timeUnit.toMillis(delay), repeats);
     }
 
+    /* =============================== */
+
+    public TaskEntryFuture<Void> scheduleAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit timeUnit) {
+        return scheduleAtFixedRate(runnable, initialDelay, period, timeUnit, CatchUpPolicy.COALESCE);
+    }
+
+    public TaskEntryFuture<Void> scheduleAtFixedRate(Runnable runnable,
+                                                     long initialDelay,
+                                                     long period,
+                                                     TimeUnit timeUnit,
+                                                     CatchUpPolicy catchUpPolicy) {
+        return scheduleAtFixedRate(runnable, null, initialDelay, period, timeUnit, -1, catchUpPolicy);
+    }
+
+    public TaskEntryFuture<Void> scheduleAtFixedRate(Runnable runnable,
+                                                     Callback<Void> callback,
+                                                     long initialDelay,
+                                                     long period,
+                                                     TimeUnit timeUnit,
+                                                     long repeats,
+                                                     CatchUpPolicy catchUpPolicy) {
+        return schedule(new VoidTaskEntry(runnable, callback, initialDelay, period, timeUnit, repeats, RepeatMode.FIXED_RATE, catchUpPolicy));
+    }
+
+    public <V> TaskEntryFuture<V> scheduleAtFixedRate(Callable<V> callable,
+                                                      Callback<V> callback,
+                                                      long initialDelay,
+                                                      long period,
+                                                      TimeUnit timeUnit,
+                                                      long repeats,
+                                                      CatchUpPolicy catchUpPolicy) {
+        return schedule(new TaskEntry<>(callable, callback, initialDelay, period, timeUnit, repeats, RepeatMode.FIXED_RATE, catchUpPolicy));
+    }
+
+    public TaskEntryFuture<Void> scheduleWithFixedDelay(Runnable runnable, long initialDelay, long delay, TimeUnit timeUnit) {
+        return scheduleWithFixedDelay(runnable, null, initialDelay, delay, timeUnit, -1);
+    }
+
+    public TaskEntryFuture<Void> scheduleWithFixedDelay(Runnable runnable,
+                                                        Callback<Void> callback,
+                                                        long initialDelay,
+                                                        long delay,
+                                                        TimeUnit timeUnit,
+                                                        long repeats) {
+        return schedule(new VoidTaskEntry(runnable, callback, initialDelay, delay, timeUnit, repeats, RepeatMode.FIXED_DELAY, CatchUpPolicy.COALESCE));
+    }
+
+    public <V> TaskEntryFuture<V> scheduleWithFixedDelay(Callable<V> callable,
+                                                         Callback<V> callback,
+                                                         long initialDelay,
+                                                         long delay,
+                                                         TimeUnit timeUnit,
+                                                         long repeats) {
+        return schedule(new TaskEntry<>(callable, callback, initialDelay, delay, timeUnit, repeats, RepeatMode.FIXED_DELAY, CatchUpPolicy.COALESCE));
+    }
+
+    /* =============================== */
+
+    public TaskEntryFuture<Void> scheduleCron(Runnable runnable, String expression) {
+        return scheduleCron(runnable, expression, ZoneId.systemDefault());
+    }
+
+    public TaskEntryFuture<Void> scheduleCron(Runnable runnable, String expression, ZoneId zone) {
+        return schedule(runnable, null, CronExpression.parse(expression), zone, -1);
+    }
+
+    public <V> TaskEntryFuture<V> scheduleCron(Callable<V> callable, Callback<V> callback, String expression, ZoneId zone) {
+        return schedule(callable, callback, CronExpression.parse(expression), zone, -1);
+    }
+
+    public TaskEntryFuture<Void> schedule(Runnable runnable, Trigger trigger, ZoneId zone) {
+        return schedule(runnable, null, trigger, zone, -1);
+    }
+
+    /**
+     * Runs the runnable on every fire time of the trigger in the given zone.
+     *
+     * @param repeats the number of runs, or -1 to run as long as the trigger fires.
+     */
+    public TaskEntryFuture<Void> schedule(Runnable runnable, Callback<Void> callback, Trigger trigger, ZoneId zone, long repeats) {
+        return schedule(new TriggerTaskEntry<>(VoidTaskEntry.wrap(runnable), callback, trigger, zone, repeats));
+    }
+
+    public <V> TaskEntryFuture<V> schedule(Callable<V> callable, Callback<V> callback, Trigger trigger, ZoneId zone, long repeats) {
+        return schedule(new TriggerTaskEntry<>(callable, callback, trigger, zone, repeats));
+    }
+
+    public TaskEntryFuture<Void> scheduleCoalesced(Object key, Runnable runnable, long delay, TimeUnit timeUnit) {
+        return scheduleCoalesced(key, runnable, delay, timeUnit, CoalesceMode.COALESCE);
+    }
+
+    /**
+     * Schedules the runnable under a key, merging it with the pending run of the key if there is one.
+     * Merged submissions share one future, which completes after the last run of the key; the runnable
+     * of the newest submission is the one which runs.
+     */
+    public TaskEntryFuture<Void> scheduleCoalesced(Object key, Runnable runnable, long delay, TimeUnit timeUnit, CoalesceMode mode) {
+        checkRunning();
+
+        long now = System.nanoTime();
+        CoalescedTaskEntry[] created = new CoalescedTaskEntry[1];
+
+        CoalescedTaskEntry entry = coalescedEntries.compute(key, (k, current) -> {
+            // entries which finished but did not leave the map yet are replaced
+            if (current != null && !current.drop().isDone()) {
+                current.merge(runnable, now);
+                return current;
+            }
+            return created[0] = new CoalescedTaskEntry(k, coalescedEntries, mode, runnable, timeUnit.toNanos(delay));
+        });
+
+        if (created[0] == null) {
+            return entry.drop();
+        }
+
+        try {
+            return schedule(entry);
+        } catch (RejectedExecutionException e) {
+            coalescedEntries.remove(key, entry);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of keys with a pending or running coalesced entry.
+     */
+    public int getCoalescedKeys() {
+        return coalescedEntries.size();
+    }
+
+    /**
+     * Schedules all entries as one batch. If the queue cannot take all of them at once, they are
+     * admitted one by one by the rejection policy. Once an entry is rejected, it and all entries after
+     * it fail with the rejection, while the entries admitted before still run.
+     *
+     * @return the futures of all entries, in the order of the collection.
+     * @throws RejectedExecutionException only if the scheduler is shut down, then no entry is scheduled.
+     */
     public <V> Collection<TaskEntryFuture<V>> schedule(Collection<TaskEntry<V>> threadEntries) {
+        checkRunning();
+
+        Collection<TaskEntryFuture<V>> TaskEntryFutures = new ArrayList<TaskEntryFuture<V>>(threadEntries.size());
 
-        Collection<TaskEntryFuture<V>> TaskEntryFutures = new ArrayList<TaskEntryFuture<V>>();
-        for (TaskEntry<V> entry : threadEntries) {
-            TaskEntryFutures.add(offerEntry(entry));
+        // generic arrays can only be created with a wildcard
+        @SuppressWarnings("unchecked")
+        List<TaskEntry<?>>[] dueEntries = (List<TaskEntry<?>>[]) new List<?>[LaneQueue.LANES.length];
+        for (int i = 0; i < dueEntries.length; i++) {
+            dueEntries[i] = new ArrayList<>();
+        }
+        List<TaskEntry<?>> delayedEntries = new ArrayList<>();
+
+        Semaphore semaphore = capacity;
+        boolean admitted = semaphore == null || semaphore.tryAcquire(threadEntries.size());
+        long now = System.nanoTime();
+
+        RejectedExecutionException rejection = null;
+        try {
+            for (TaskEntry<V> entry : threadEntries) {
+                TaskEntryFutures.add(entry.drop());
+
+                if (rejection != null) {
+                    metrics.rejected.increment();
+                    entry.abandon(rejection);
+                    continue;
+                }
+
+                if (admitted) {
+                    entry.permit = semaphore;
+                    metrics.submitted.increment();
+                } else {
+                    try {
+                        if (!admit(entry)) {
+                            continue;
+                        }
+                    } catch (RejectedExecutionException e) {
+                        // the entries admitted so far are offered below, the rest is never queued
+                        rejection = e;
+                        entry.abandon(e);
+                        continue;
+                    }
+                }
+
+                if (entry.deadlineNanos - now <= 0) {
+                    dueEntries[entry.lane.ordinal()].add(entry);
+                } else {
+                    delayedEntries.add(entry);
+                }
+            }
+        } finally {
+            offerAll(dueEntries, delayedEntries);
         }
 
         return TaskEntryFutures;
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * Stops the intake of new entries and cancels all timers. Entries which are already due still run,
+     * the workers retire as soon as the queues are drained.
+     *
+     * @return the delayed entries which will not run anymore. Their futures are completed
+     * exceptionally, but the entries keep their tasks and can be scheduled on another scheduler.
+     */
     public Collection<TaskEntry<?>> shutdown() {
+        synchronized (this) {
+            if (state == RUNNING) {
+                state = SHUTDOWN;
+            }
+        }
 
-        for (Worker worker : workers) {
-            try {
-                worker.interrupt();
-                worker.stop();
-            } catch (ThreadDeath th) {
-                workers.remove(worker);
+        Collection<TaskEntry<?>> entries = stopTimers();
+        abandonAll(entries);
+
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.idle = false;
+            LockSupport.unpark(worker);
+        }
+
+        tryTerminate();
+        return entries;
+    }
+
+    /**
+     * Shuts down and waits up to the drain timeout for the due entries to run, then stops whatever
+     * is left with {@link #shutdownNow()}.
+     *
+     * @return all entries which did not run, delayed and queued ones.
+     */
+    public Collection<TaskEntry<?>> shutdown(long drainTimeout, TimeUnit timeUnit) {
+        Collection<TaskEntry<?>> entries = shutdown();
+
+        boolean terminated;
+        try {
+            terminated = awaitTermination(drainTimeout, timeUnit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            terminated = false;
+        }
+
+        if (!terminated) {
+            entries.addAll(shutdownNow());
+        }
+        return entries;
+    }
+
+    /**
+     * Stops the intake of new entries, cancels all timers, takes all queued entries out of the queues
+     * and interrupts the workers. Running entries are not stopped forcibly, they only see the interrupt.
+     *
+     * @return the delayed and queued entries which will not run anymore. Their futures are completed
+     * exceptionally, but the entries keep their tasks and can be scheduled on another scheduler.
+     */
+    public Collection<TaskEntry<?>> shutdownNow() {
+        synchronized (this) {
+            if (state < STOP) {
+                state = STOP;
             }
         }
 
-        Collection<TaskEntry<?>> entries = new ArrayList<>(taskEntries);
+        Collection<TaskEntry<?>> entries = stopTimers();
+        entries.addAll(drainQueued());
 
-        taskEntries.clear();
-        workers.clear();
-        threadId.set(0);
+        for (Worker worker : workers) {
+            worker.interrupt();
+        }
 
+        abandonAll(entries);
+        tryTerminate();
         return entries;
     }
 
+    /**
+     * Waits until all workers retired and no entry runs anymore after a shutdown.
+     *
+     * @return false if the timeout elapsed first.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        try {
+            termination.get(timeout, timeUnit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return termination.isDone();
+    }
+
+    /**
+     * @return a future which completes once the scheduler is terminated.
+     */
+    public CompletableFuture<Void> getTerminationFuture() {
+        return termination.copy();
+    }
+
+    /**
+     * Stops all timers.
+     *
+     * @return the delayed entries which were still waiting.
+     */
+    protected Collection<TaskEntry<?>> stopTimers() {
+        HashedTimingWheel wheel;
+        synchronized (this) {
+            wheel = timingWheel;
+            timingWheel = null;
+        }
+        if (wheel == null) {
+            return new ArrayList<>();
+        }
+
+        Collection<TaskEntry<?>> entries = wheel.stop();
+        entries.remove(poolController);
+        entries.remove(watchdog);
+        return entries;
+    }
+
+    private Collection<TaskEntry<?>> drainQueued() {
+        Collection<TaskEntry<?>> entries = new ArrayList<>();
+        taskEntries.drainTo(entries);
+
+        for (Worker worker : workers) {
+            worker.localEntries.drainTo(entries);
+        }
+        return entries;
+    }
+
+    private void abandonAll(Collection<TaskEntry<?>> entries) {
+        RejectedExecutionException exception = shutdownException();
+        for (TaskEntry<?> entry : entries) {
+            entry.abandon(exception);
+        }
+    }
+
+    protected RejectedExecutionException shutdownException() {
+        return new RejectedExecutionException(name + " is shut down");
+    }
+
+    protected void tryTerminate() {
+        if (state == RUNNING || !workers.isEmpty() || activeVirtualTasks.get() != 0) {
+            return;
+        }
+        if (state == SHUTDOWN && hasQueuedEntries()) {
+            return;
+        }
+        termination.complete(null);
+    }
+
     public TaskScheduler chargeThreadLimit(short threads) {
         this.maxThreads += threads;
         return this;
     }
 
+    /**
+     * Sets the number of workers which never retire when idle. Core workers are still only started
+     * on demand.
+     */
+    public TaskScheduler coreThreads(int coreThreads) {
+        this.coreThreads = Math.max(0, Math.min(coreThreads, maxThreads));
+        if (targetThreads < this.coreThreads) {
+            targetThreads = this.coreThreads;
+        }
+        return this;
+    }
+
+    /**
+     * Sets the queue wait above which the pool controller of a dynamic worker count adds workers.
+     */
+    public TaskScheduler targetQueueWait(long targetQueueWait, TimeUnit timeUnit) {
+        this.targetQueueWaitNanos = timeUnit.toNanos(targetQueueWait);
+        return this;
+    }
+
+    public int getCoreThreads() {
+        return coreThreads;
+    }
+
+    /**
+     * Sets how long a single run of an entry may take before the watchdog reports it, for entries
+     * without an own execution timeout. 0 disables the default. Only runs on the platform workers
+     * are watched, not the ones on virtual threads.
+     */
+    public TaskScheduler executionTimeout(long timeout, TimeUnit timeUnit) {
+        this.executionTimeoutNanos = timeUnit.toNanos(Math.max(0, timeout));
+        if (executionTimeoutNanos > 0) {
+            startWatchdog();
+        }
+        return this;
+    }
+
+    /**
+     * Enables or disables interrupting the worker of a run which exceeded its execution timeout.
+     */
+    public TaskScheduler interruptOverrunTasks(boolean interruptOverrunTasks) {
+        this.interruptOverrunTasks = interruptOverrunTasks;
+        return this;
+    }
+
+    /**
+     * Enables or disables replacing the worker of a run which exceeded its execution timeout. The
+     * stuck worker leaves the pool once its run returns, a new worker takes its place right away.
+     */
+    public TaskScheduler replaceStuckWorkers(boolean replaceStuckWorkers) {
+        this.replaceStuckWorkers = replaceStuckWorkers;
+        return this;
+    }
+
+    public long getExecutionTimeout(TimeUnit timeUnit) {
+        return timeUnit.convert(executionTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isInterruptOverrunTasks() {
+        return interruptOverrunTasks;
+    }
+
+    public boolean isReplaceStuckWorkers() {
+        return replaceStuckWorkers;
+    }
+
+    /**
+     * @return the pool size the controller currently aims for, only used with a dynamic worker count.
+     */
+    public int getTargetThreads() {
+        return targetThreads;
+    }
+
+    /**
+     * Enables or disables work stealing. While enabled, entries which are scheduled from a worker
+     * thread of this scheduler (including repeats) are queued on that worker's local deque, and idle
+     * workers steal from the other workers once their own deque and the shared queue are empty.
+     */
+    public TaskScheduler workStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+        return this;
+    }
+
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Enables or disables the virtual thread mode. While enabled, the workers only take due entries
+     * from the queues in order and start each of them on its own virtual thread, so blocking tasks
+     * do not occupy a worker. Runtimes without virtual threads (before Java 21) keep running the
+     * entries on the platform workers.
+     */
+    public TaskScheduler virtualThreads(boolean virtualThreads) {
+        if (!virtualThreads) {
+            this.virtualThreadFactory = null;
+            return this;
+        }
+
+        ThreadFactory factory = createVirtualThreadFactory(name + "#Virtual-");
+        if (factory == null) {
+            logger.log(Level.WARNING, "Virtual threads are not available on this runtime, using platform workers for " + name);
+        }
+        this.virtualThreadFactory = factory;
+        return this;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreadFactory != null;
+    }
+
+    /**
+     * Bounds the number of entries which are queued or waiting for their deadline. Entries which are
+     * already queued when the capacity is changed do not count against the new capacity.
+     *
+     * @param capacity the maximum number of pending entries, or a negative value for no bound.
+     */
+    public TaskScheduler queueCapacity(int capacity, RejectionPolicy rejectionPolicy) {
+        return queueCapacity(capacity, rejectionPolicy, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public TaskScheduler queueCapacity(int capacity, RejectionPolicy rejectionPolicy, long blockTimeout, TimeUnit timeUnit) {
+        this.rejectionPolicy = rejectionPolicy != null ? rejectionPolicy : RejectionPolicy.ABORT;
+        this.blockTimeoutNanos = timeUnit.toNanos(blockTimeout);
+        this.queueCapacity = capacity;
+        this.capacity = capacity < 0 ? null : new Semaphore(capacity);
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the number of entries which can still be scheduled before the rejection policy applies,
+     * or {@link Integer#MAX_VALUE} if the queue is unbounded.
+     */
+    public int getRemainingCapacity() {
+        Semaphore semaphore = capacity;
+        return semaphore == null ? Integer.MAX_VALUE : semaphore.availablePermits();
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public long getQueueDepth(TaskLane lane) {
+        long depth = taskEntries.size(lane);
+        for (Worker worker : workers) {
+            depth += worker.localEntries.size(lane);
+        }
+        return depth;
+    }
+
+    public long getQueueDepth() {
+        long depth = taskEntries.size();
+        for (Worker worker : workers) {
+            depth += worker.localEntries.size();
+        }
+        return depth;
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    protected void runEntry(TaskEntry<?> entry) {
+        entry.releasePermit();
+
+        boolean recorded = entry.isRecorded();
+        Callable<?> task = entry.task;
+        long start = System.nanoTime();
+        if (recorded && entry.readyNanos != 0) {
+            metrics.queueWait.record(start - entry.readyNanos);
+        }
+
+        // the first event class use boots JFR, which takes a few hundred milliseconds
+        SlowTaskEvent event = recorded && FlightRecorder.isInitialized() ? new SlowTaskEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        try {
+            entry.invoke();
+        } catch (Throwable throwable) {
+            logger.log(Level.SEVERE, "Error on handling Task on Thread [" + Thread.currentThread().getName() + ']', throwable);
+            entry.fail(throwable);
+            if (recorded) {
+                metrics.failed.increment();
+                recordExecution(entry, task, event, start, true);
+            }
+            // the future is failed, but the worker must not go on after the VM broke
+            if (throwable instanceof VirtualMachineError error) {
+                throw error;
+            }
+            return;
+        }
+
+        if (recorded) {
+            metrics.completed.increment();
+            recordExecution(entry, task, event, start, false);
+        }
+
+        if (entry.repeat == -1 || entry.repeat > 0) {
+            if (state == RUNNING) {
+                offerEntry(entry);
+            } else {
+                entry.abandon(shutdownException());
+            }
+        }
+    }
+
+    private void recordExecution(TaskEntry<?> entry, Callable<?> task, SlowTaskEvent event, long start, boolean failed) {
+        metrics.executionTime.record(System.nanoTime() - start);
+
+        if (event == null) {
+            return;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.scheduler = name;
+            event.task = task != null ? task.getClass().getName() : null;
+            event.lane = entry.lane.name();
+            event.queueWait = entry.readyNanos != 0 ? start - entry.readyNanos : 0;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Collection<Worker> getWorkers() {
+        return Collections.unmodifiableCollection(workers);
+    }
+
     public ThreadGroup getThreadGroup() {
         return threadGroup;
     }
@@ -469,10 +1626,32 @@ public class TaskScheduler {
 
     public class Worker extends Thread {
 
+        final LaneQueue localEntries = new LaneQueue();
+
+        private final int[] laneCredits = new int[LaneQueue.LANES.length];
+
+        private final TaskScheduler scheduler = TaskScheduler.this;
+
         volatile TaskEntry<?> taskEntry = null;
 
+        volatile boolean idle = false;
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile long busyNanos;
+
         private long liveTimeStamp = System.currentTimeMillis();
 
+        volatile long runStartNanos;
+
+        volatile boolean overrun;
+
+        /**
+         * Set once this worker gave up its slot in the worker count, either by retiring or by being
+         * replaced by the watchdog.
+         */
+        final AtomicBoolean released = new AtomicBoolean();
+
         Worker() {
             super(threadGroup, threadGroup.getName() + '#' + threadId.addAndGet(1));
             setDaemon(true);
@@ -483,87 +1662,251 @@ public class TaskScheduler {
         }
 
         @Override
-        public synchronized void run() {
-            while ((liveTimeStamp + threadLiveMillis) > System.currentTimeMillis()) {
-                execute();
-                sleepUninterruptedly(sleepThreadSwitch);
+        public void run() {
+            try {
+                do {
+                    execute();
+                } while (!released.get() && awaitEntries());
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    workerCount.decrementAndGet();
+                }
+                exit();
             }
+        }
 
+        private void exit() {
             workers.remove(this);
+
+            TaskEntry<?> entry;
+            while ((entry = localEntries.poll()) != null) {
+                if (state >= STOP) {
+                    entry.abandon(shutdownException());
+                } else {
+                    taskEntries.offer(entry);
+                }
+            }
+
+            if (state < STOP && hasQueuedEntries()) {
+                addWorker();
+            }
+            tryTerminate();
         }
 
-        public synchronized void execute() {
-            while (!taskEntries.isEmpty() && !isInterrupted()) {
-                taskEntry = taskEntries.poll();
+        /**
+         * Parks this worker until an entry is offered. The worker is registered as idle before the
+         * queues are checked again, so an entry offered concurrently either is seen here or unparks
+         * this worker. Workers above the core threads retire after {@code threadLiveMillis} without
+         * an entry. With a dynamic worker count only the pool controller's target size counts, idle
+         * workers above it retire at once and the ones within it stay until the target shrinks.
+         * After a shutdown the worker retires once the queues are drained.
+         *
+         * @return false if the worker should retire.
+         */
+        private boolean awaitEntries() {
+            idle = true;
+            idleWorkers.push(this);
+
+            while (idle) {
+                // interrupts only matter through the state, a stale flag would keep parkNanos from parking
+                Thread.interrupted();
+
+                if (state >= STOP) {
+                    retire(-1);
+                    return false;
+                }
+
+                if (hasQueuedEntries()) {
+                    idleWorkers.remove(this);
+                    idle = false;
+                    return true;
+                }
+
+                if (state != RUNNING) {
+                    retire(-1);
+                    return false;
+                }
 
-                if (taskEntry == null || taskEntry.task == null) {
+                int floor = dynamicWorkerCount ? Math.max(coreThreads, targetThreads) : coreThreads;
+                if (dynamicWorkerCount && retire(floor)) {
+                    return false;
+                }
+
+                long remaining = (liveTimeStamp + threadLiveMillis) - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    if (retire(floor)) {
+                        return false;
+                    }
+                    liveTimeStamp = System.currentTimeMillis();
                     continue;
                 }
 
-                liveTimeStamp = System.currentTimeMillis();
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remaining));
+            }
+            return true;
+        }
 
-                if (taskEntry.delayTimeOut != 0 && System.currentTimeMillis() < taskEntry.delayTimeOut) {
-                    if (maxThreads != 1) {
-                        long difference = taskEntry.delayTimeOut - System.currentTimeMillis();
+        /**
+         * Retires this idle worker if the pool stays above the given number of workers without it.
+         * A negative floor always retires.
+         *
+         * @return false if the worker has to stay.
+         */
+        private boolean retire(int floor) {
+            if (!idleWorkers.remove(this) && floor >= 0) {
+                // a signal for this worker is on its way
+                return false;
+            }
 
-                        if (difference > sleepThreadSwitch) {
-                            sleepUninterruptedly(sleepThreadSwitch - 1);
-                            offerEntry(taskEntry);
-                            continue;
+            if (!released.compareAndSet(false, true)) {
+                // already replaced by the watchdog
+                idle = false;
+                return true;
+            }
 
-                        } else {
-                            sleepUninterruptedly(difference);
-                        }
-                    } else {
-                        sleepUninterruptedly(sleepThreadSwitch);
-                        offerEntry(taskEntry);
-                        continue;
+            if (floor >= 0) {
+                int count;
+                do {
+                    count = workerCount.get();
+                    if (count <= floor) {
+                        released.set(false);
+                        idleWorkers.push(this);
+                        return false;
                     }
+                } while (!workerCount.compareAndSet(count, count - 1));
+            } else {
+                workerCount.decrementAndGet();
+            }
+
+            idle = false;
+            return true;
+        }
+
+        public void execute() {
+            while (state < STOP) {
+                TaskEntry<?> entry = nextEntry();
+
+                if (entry == null) {
+                    return;
                 }
 
-                try {
-                    taskEntry.invoke();
-                } catch (Exception e) {
-                    logger.log(Level.SEVERE, "Error on handling Task on Thread [" + getName() + ']', e);
+                if (entry.task == null) {
+                    continue;
+                }
+
+                liveTimeStamp = System.currentTimeMillis();
+
+                ThreadFactory factory = virtualThreadFactory;
+                if (factory != null) {
+                    activeVirtualTasks.incrementAndGet();
+                    factory.newThread(() -> {
+                        try {
+                            runEntry(entry);
+                        } finally {
+                            if (activeVirtualTasks.decrementAndGet() == 0) {
+                                tryTerminate();
+                            }
+                        }
+                    }).start();
+                    continue;
                 }
 
-                if (checkEntry()) {
-                    taskEntry = null;
+                if (watchdog == null && (entry.executionTimeoutNanos > 0 || executionTimeoutNanos > 0)) {
+                    startWatchdog();
+                }
+
+                long start = System.nanoTime();
+                overrun = false;
+                runStartNanos = start;
+                taskEntry = entry;
+                runEntry(entry);
+                busyNanos += System.nanoTime() - start;
+                taskEntry = null;
+
+                // do not leak an interrupt of the entry into the next one
+                Thread.interrupted();
+
+                if (released.get()) {
+                    // replaced by the watchdog while the run was stuck
+                    return;
                 }
             }
         }
 
-        private synchronized void sleepUninterruptedly(long millis) {
-            try {
-                Thread.sleep(millis);
-            } catch (InterruptedException ignored) {
+        /**
+         * Picks the lane by smooth weighted round robin over the lanes which have entries in the local
+         * or the shared queue, then falls back to any lane and finally to stealing by lane order.
+         */
+        private TaskEntry<?> nextEntry() {
+            int selected = -1, totalWeight = 0;
+
+            for (int i = 0; i < laneCredits.length; i++) {
+                if (localEntries.isEmpty(i) && taskEntries.isEmpty(i)) {
+                    continue;
+                }
+
+                laneCredits[i] += LaneQueue.LANES[i].getWeight();
+                totalWeight += LaneQueue.LANES[i].getWeight();
+
+                if (selected == -1 || laneCredits[i] > laneCredits[selected]) {
+                    selected = i;
+                }
             }
-        }
 
-        private void offerEntry(TaskEntry<?> entry) {
-            taskEntries.offer(taskEntry);
-            taskEntry = null;
-        }
+            TaskEntry<?> entry;
+            if (selected != -1) {
+                laneCredits[selected] -= totalWeight;
 
+                if ((entry = pollLane(selected)) != null) {
+                    return entry;
+                }
+            }
 
-        private boolean checkEntry() {
-            if (taskEntry.repeat == -1) {
-                offerEntry(taskEntry);
-                return false;
+            for (int i = 0; i < laneCredits.length; i++) {
+                if ((entry = pollLane(i)) != null) {
+                    return entry;
+                }
             }
 
-            if (taskEntry.repeat > 0) {
-                offerEntry(taskEntry);
-                return false;
+            if (!workStealing) {
+                return null;
             }
 
-            return true;
+            for (int i = 0; i < laneCredits.length; i++) {
+                for (Worker worker : workers) {
+                    if (worker != this && (entry = worker.localEntries.poll(i)) != null) {
+                        return entry;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private TaskEntry<?> pollLane(int lane) {
+            TaskEntry<?> entry = localEntries.poll(lane);
+            return entry != null ? entry : taskEntries.poll(lane);
         }
 
         public TaskEntry<?> getTaskEntry() {
             return taskEntry;
         }
 
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        public long getIdleNanos() {
+            return Math.max(0, (System.nanoTime() - startNanos) - busyNanos);
+        }
+
+        /**
+         * @return the share of this worker's lifetime it spent running entries, between 0 and 1.
+         */
+        public double getBusyRatio() {
+            long lifetime = System.nanoTime() - startNanos;
+            return lifetime <= 0 ? 0 : Math.min(1, (double) busyNanos / lifetime);
+        }
+
     }
 
     private final class VoidTaskEntry extends TaskEntry<Void> {
@@ -574,7 +1917,24 @@ public class TaskScheduler {
 
 
         public VoidTaskEntry(Runnable ptask, Callback<Void> pComplete, long pDelay, long pRepeat) {
-            super(new Callable<Void>() {
+            super(wrap(ptask), pComplete, pDelay, pRepeat);
+        }
+
+
+        public VoidTaskEntry(Runnable ptask,
+                             Callback<Void> pComplete,
+                             long pDelay,
+                             long pPeriod,
+                             TimeUnit pUnit,
+                             long pRepeat,
+                             RepeatMode pRepeatMode,
+                             CatchUpPolicy pCatchUpPolicy) {
+            super(wrap(ptask), pComplete, pDelay, pPeriod, pUnit, pRepeat, pRepeatMode, pCatchUpPolicy);
+        }
+
+
+        private static Callable<Void> wrap(Runnable ptask) {
+            return new Callable<Void>() {
 
                 @Override
                 public Void call() throws Exception {
@@ -585,7 +1945,7 @@ public class TaskScheduler {
 
                     return null;
                 }
-            }, pComplete, pDelay, pRepeat);
+            };
         }
     }
 
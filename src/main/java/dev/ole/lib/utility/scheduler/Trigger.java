@@ -0,0 +1,20 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Calendar rule for repeated entries. The scheduler asks for the next fire time only once per run,
+ * always relative to the previous fire time, and keeps the entry in its timer until then.
+ *
+ * @see CronExpression
+ */
+@FunctionalInterface
+public interface Trigger {
+
+    /**
+     * @param after the previous fire time, in the zone the trigger is evaluated in.
+     * @return the first fire time strictly after the given one, or null if the trigger never fires again.
+     */
+    ZonedDateTime next(ZonedDateTime after);
+
+}
@@ -0,0 +1,83 @@
+package dev.ole.lib.utility.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry which repeats on the fire times of a {@link Trigger}. Every next fire time is derived from the
+ * previous one and the entry waits in the timing wheel in between, so an idle schedule costs nothing.
+ * Fire times which passed while a run was still busy are skipped.
+ */
+public class TriggerTaskEntry<T> extends TaskEntry<T> {
+
+    private final Trigger trigger;
+    private final ZoneId zone;
+    private volatile ZonedDateTime fireTime;
+
+    /**
+     * @param repeat the number of runs, or -1 to run as long as the trigger fires.
+     * @throws IllegalArgumentException if the trigger never fires.
+     */
+    public TriggerTaskEntry(Callable<T> task, Callback<T> complete, Trigger trigger, ZoneId zone, long repeat) {
+        this(task, complete, trigger, zone, firstFireTime(trigger, zone), repeat);
+    }
+
+    private TriggerTaskEntry(Callable<T> task, Callback<T> complete, Trigger trigger, ZoneId zone, ZonedDateTime fireTime, long repeat) {
+        super(task, complete, delayNanos(fireTime), 0, TimeUnit.NANOSECONDS, repeat, RepeatMode.FIXED_DELAY, CatchUpPolicy.SKIP);
+        this.trigger = trigger;
+        this.zone = zone;
+        this.fireTime = fireTime;
+        this.delayTimeOut = fireTime.toInstant().toEpochMilli();
+    }
+
+    @Override
+    protected boolean advance(long now) {
+        ZonedDateTime next = trigger.next(fireTime);
+        ZonedDateTime current = ZonedDateTime.now(zone);
+
+        if (next != null && !next.isAfter(current)) {
+            next = trigger.next(current);
+        }
+        if (next == null) {
+            return false;
+        }
+
+        // read both clocks together, the trigger may have taken a while
+        this.fireTime = next;
+        this.deadlineNanos = System.nanoTime() + delayNanos(next);
+        this.delayTimeOut = next.toInstant().toEpochMilli();
+        return true;
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return the fire time of the next run, or of the last one once the entry is completed.
+     */
+    public ZonedDateTime getFireTime() {
+        return fireTime;
+    }
+
+    private static ZonedDateTime firstFireTime(Trigger trigger, ZoneId zone) {
+        ZonedDateTime first = trigger.next(ZonedDateTime.now(zone));
+        if (first == null) {
+            throw new IllegalArgumentException("Trigger " + trigger + " never fires");
+        }
+        return first;
+    }
+
+    private static long delayNanos(ZonedDateTime fireTime) {
+        return Math.max(0, Duration.between(Instant.now(), fireTime.toInstant()).toNanos());
+    }
+
+}
@@ -0,0 +1,74 @@
+package dev.ole.lib.network;
+
+import com.google.gson.JsonElement;
+import io.netty5.buffer.Buffer;
+import io.netty5.buffer.BufferAllocator;
+import io.netty5.channel.embedded.EmbeddedChannel;
+import io.netty5.handler.codec.CorruptedFrameException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonCodecTest {
+
+    @Test
+    void messagesSurvivePartialReads() {
+        EmbeddedChannel out = new EmbeddedChannel(new JsonEncoder<>(Message.class));
+        // multi-byte characters end up split across reads
+        List<Message> messages = List.of(new Message("grüße", 1), new Message("🚀 ".repeat(100), 2), new Message("", 3));
+
+        Buffer stream = BufferAllocator.onHeapUnpooled().allocate(4096);
+        for (Message message : messages) {
+            out.writeOutbound(message);
+            try (Buffer frame = out.readOutbound()) {
+                stream.writeBytes(frame);
+            }
+        }
+
+        for (int chunk = 1; chunk <= 7; chunk += 3) {
+            EmbeddedChannel in = new EmbeddedChannel(new JsonDecoder(Message.class));
+            Buffer copy = stream.copy();
+            while (copy.readableBytes() > 0) {
+                in.writeInbound(copy.readSplit(Math.min(chunk, copy.readableBytes())));
+            }
+            for (Message message : messages) {
+                assertEquals(message, in.readInbound());
+            }
+            assertNull(in.readInbound());
+        }
+    }
+
+    @Test
+    void invalidFrameFailsOnItsOwn() {
+        EmbeddedChannel in = new EmbeddedChannel(new JsonDecoder());
+        assertThrows(CorruptedFrameException.class, () -> in.writeInbound(frame("{\"broken\":")));
+        assertThrows(CorruptedFrameException.class, () -> in.writeInbound(frame("{} []")));
+
+        in.writeInbound(frame("[1,2]"));
+        JsonElement element = in.readInbound();
+        assertEquals(2, element.getAsJsonArray().size());
+    }
+
+    @Test
+    void nullFrameIsDropped() {
+        EmbeddedChannel in = new EmbeddedChannel(new JsonDecoder());
+        in.writeInbound(frame("null"));
+        assertNull(in.readInbound());
+    }
+
+    private static Buffer frame(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        Buffer buffer = BufferAllocator.onHeapUnpooled().allocate(bytes.length + PacketBuffers.MAX_VAR_INT_SIZE);
+        PacketBuffers.writeVarInt(buffer, bytes.length);
+        return buffer.writeBytes(bytes);
+    }
+
+    record Message(String text, int number) {
+    }
+
+}
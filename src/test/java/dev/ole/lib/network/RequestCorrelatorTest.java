@@ -0,0 +1,193 @@
+package dev.ole.lib.network;
+
+import dev.ole.lib.utility.scheduler.EventLoopTaskScheduler;
+import dev.ole.lib.utility.scheduler.TaskScheduler;
+import io.netty5.buffer.Buffer;
+import io.netty5.channel.Channel;
+import io.netty5.channel.ChannelHandler;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.channel.ChannelInitializer;
+import io.netty5.channel.local.LocalAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCorrelatorTest {
+
+    private final NetworkBootstrap network = new NetworkBootstrap(Transport.LOCAL).workerThreads(2);
+
+    private TaskScheduler scheduler = new TaskScheduler(2);
+
+    @AfterEach
+    void tearDown() {
+        network.shutdown();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void pipelinedRequestsGetTheirResponses() throws Exception {
+        assertPipelined(connect());
+    }
+
+    @Test
+    void pipelinedRequestsOnTheEventLoopScheduler() throws Exception {
+        network.newBootstrap();
+        scheduler.shutdownNow();
+        scheduler = new EventLoopTaskScheduler(network.getWorkerGroup());
+        assertPipelined(connect());
+    }
+
+    @Test
+    void unansweredRequestTimesOut() throws Exception {
+        RequestCorrelator correlator = connect();
+        CompletableFuture<Ping> lost = correlator.request(new Ping(-1, false), 100, TimeUnit.MILLISECONDS);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> lost.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertEquals(0, pendingCount(correlator));
+    }
+
+    @Test
+    void cancelForgetsTheRequest() throws Exception {
+        RequestCorrelator correlator = connect();
+        CompletableFuture<Ping> cancelled = correlator.request(new Ping(-1, false));
+        assertTrue(cancelled.cancel(false));
+
+        // a later request still goes through
+        assertEquals(2, correlator.<Ping>request(new Ping(1, false)).get(5, TimeUnit.SECONDS).value);
+        assertEquals(0, pendingCount(correlator));
+    }
+
+    @Test
+    void closeFailsThePendingRequests() throws Exception {
+        RequestCorrelator correlator = connect();
+        CompletableFuture<Ping> pending = correlator.request(new Ping(-1, false), 0, TimeUnit.MILLISECONDS);
+        // the request is sent on the event loop, close only once it is pending
+        while (pendingCount(correlator) == 0) {
+            Thread.sleep(1);
+        }
+
+        correlator.context.channel().close().asStage().get(5, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ClosedChannelException.class, failure.getCause());
+    }
+
+    private void assertPipelined(RequestCorrelator correlator) throws Exception {
+        List<CompletableFuture<Ping>> futures = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            futures.add(correlator.request(new Ping(i, false)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i * 2, futures.get(i).get(10, TimeUnit.SECONDS).value);
+        }
+        assertEquals(0, pendingCount(correlator));
+    }
+
+    private RequestCorrelator connect() throws Exception {
+        LocalAddress address = new LocalAddress("correlator-" + UUID.randomUUID());
+        network.bind(address, new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                channel.pipeline().addLast(new PacketDecoder(registry()), new PacketEncoder(registry()), new EchoHandler());
+            }
+        });
+
+        Channel client = network.connect(address, new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                channel.pipeline().addLast(new PacketDecoder(registry()), new PacketEncoder(registry()), new RequestCorrelator(scheduler));
+            }
+        }).asStage().get(5, TimeUnit.SECONDS);
+        return RequestCorrelator.get(client);
+    }
+
+    private static int pendingCount(RequestCorrelator correlator) throws Exception {
+        // read on the event loop, where the pending requests live
+        return correlator.context.executor().submit(correlator::getPendingCount).asStage().get(5, TimeUnit.SECONDS);
+    }
+
+    private static PacketRegistry registry() {
+        return new PacketRegistry().register(1, Ping.class, Ping::new);
+    }
+
+    /**
+     * Answers every request with the doubled value, negative values stay unanswered.
+     */
+    private static final class EchoHandler implements ChannelHandler {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Ping request = (Ping) msg;
+            if (request.value < 0) {
+                return;
+            }
+
+            Ping response = new Ping(request.value * 2, true);
+            response.setCorrelationId(request.getCorrelationId());
+            ctx.write(response);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    public static final class Ping implements CorrelatedPacket {
+
+        private long correlationId;
+        private int value;
+        private boolean response;
+
+        public Ping() {
+        }
+
+        Ping(int value, boolean response) {
+            this.value = value;
+            this.response = response;
+        }
+
+        @Override
+        public long getCorrelationId() {
+            return correlationId;
+        }
+
+        @Override
+        public void setCorrelationId(long correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public boolean isResponse() {
+            return response;
+        }
+
+        @Override
+        public void write(Buffer buffer) {
+            PacketBuffers.writeVarLong(buffer, correlationId);
+            buffer.writeInt(value);
+            buffer.writeBoolean(response);
+        }
+
+        @Override
+        public void read(Buffer buffer) {
+            correlationId = PacketBuffers.readVarLong(buffer);
+            value = buffer.readInt();
+            response = buffer.readBoolean();
+        }
+    }
+
+}
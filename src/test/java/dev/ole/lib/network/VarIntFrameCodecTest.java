@@ -0,0 +1,149 @@
+package dev.ole.lib.network;
+
+import io.netty5.buffer.Buffer;
+import io.netty5.buffer.BufferAllocator;
+import io.netty5.buffer.internal.InternalBufferUtils;
+import io.netty5.buffer.internal.ResourceSupport;
+import io.netty5.channel.ChannelHandlerContext;
+import io.netty5.channel.embedded.EmbeddedChannel;
+import io.netty5.handler.codec.CorruptedFrameException;
+import io.netty5.handler.codec.EncoderException;
+import io.netty5.handler.codec.TooLongFrameException;
+import io.netty5.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VarIntFrameCodecTest {
+
+    private static final int MAX_FRAME_LENGTH = 300;
+
+    @Test
+    void framesSurviveByteByByteReads() {
+        EmbeddedChannel out = new EmbeddedChannel(new StringEncoder());
+        EmbeddedChannel in = new EmbeddedChannel(new StringDecoder());
+        String[] messages = {"a", "x".repeat(200), "last"};
+
+        Buffer stream = BufferAllocator.onHeapUnpooled().allocate(512);
+        for (String message : messages) {
+            out.writeOutbound(message);
+            try (Buffer frame = out.readOutbound()) {
+                stream.writeBytes(frame);
+            }
+        }
+
+        while (stream.readableBytes() > 0) {
+            in.writeInbound(stream.readSplit(1));
+        }
+        for (String message : messages) {
+            assertEquals(message, in.readInbound());
+        }
+        assertNull(in.readInbound());
+    }
+
+    @Test
+    void lengthWithOverlongFifthByteIsRejected() {
+        byte[] overlong = {(byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10};
+
+        EmbeddedChannel in = new EmbeddedChannel(new StringDecoder());
+        assertThrows(CorruptedFrameException.class, () -> in.writeInbound(bytes(overlong)));
+        assertThrows(CorruptedFrameException.class, () -> PacketBuffers.readVarInt(bytes(overlong)));
+    }
+
+    @Test
+    void varIntsRoundTripAtTheBounds() {
+        for (int value : new int[]{0, 1, 127, 128, Integer.MAX_VALUE, -1, Integer.MIN_VALUE}) {
+            Buffer buffer = BufferAllocator.onHeapUnpooled().allocate(PacketBuffers.MAX_VAR_INT_SIZE);
+            PacketBuffers.writeVarInt(buffer, value);
+            assertEquals(value, PacketBuffers.readVarInt(buffer));
+        }
+        for (long value : new long[]{0, Long.MAX_VALUE, -1, Long.MIN_VALUE}) {
+            Buffer buffer = BufferAllocator.onHeapUnpooled().allocate(PacketBuffers.MAX_VAR_LONG_SIZE);
+            PacketBuffers.writeVarLong(buffer, value);
+            assertEquals(value, PacketBuffers.readVarLong(buffer));
+        }
+    }
+
+    @Test
+    void emptyFramesAreNeitherWrittenNorRead() {
+        EmbeddedChannel out = new EmbeddedChannel(new StringEncoder());
+        Future<Void> write = out.writeOneOutbound("");
+        out.flushOutbound();
+        assertTrue(write.isFailed());
+        assertInstanceOf(EncoderException.class, write.cause());
+
+        EmbeddedChannel in = new EmbeddedChannel(new StringDecoder());
+        assertThrows(CorruptedFrameException.class, () -> in.writeInbound(bytes(new byte[]{0})));
+    }
+
+    @Test
+    void tooLongFrameIsSkippedAcrossReads() {
+        EmbeddedChannel in = new EmbeddedChannel(new StringDecoder());
+        Buffer stream = BufferAllocator.onHeapUnpooled().allocate(512);
+        PacketBuffers.writeVarInt(stream, MAX_FRAME_LENGTH + 1);
+        stream.writeBytes(new byte[MAX_FRAME_LENGTH + 1]);
+        PacketBuffers.writeVarInt(stream, 2);
+        stream.writeBytes("ok".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(TooLongFrameException.class, () -> in.writeInbound(stream.readSplit(10)));
+        while (stream.readableBytes() > 0) {
+            in.writeInbound(stream.readSplit(Math.min(64, stream.readableBytes())));
+        }
+        assertEquals("ok", in.readInbound());
+    }
+
+    @Test
+    void sharedBufferIsCopiedInsteadOfSplit() {
+        EmbeddedChannel out = new EmbeddedChannel(new StringEncoder());
+        Buffer stream = BufferAllocator.onHeapUnpooled().allocate(64);
+        for (String message : new String[]{"first", "second"}) {
+            out.writeOutbound(message);
+            try (Buffer frame = out.readOutbound()) {
+                stream.writeBytes(frame);
+            }
+        }
+
+        // the local transport hands over buffers which the writing side still holds
+        Buffer shared = InternalBufferUtils.acquire((ResourceSupport<?, ?>) stream);
+        EmbeddedChannel in = new EmbeddedChannel(new StringDecoder());
+        in.writeInbound(shared);
+        assertEquals("first", in.readInbound());
+        assertEquals("second", in.readInbound());
+        stream.close();
+    }
+
+    private static Buffer bytes(byte[] bytes) {
+        return BufferAllocator.onHeapUnpooled().copyOf(bytes);
+    }
+
+    private static final class StringEncoder extends VarIntFrameEncoder<String> {
+
+        StringEncoder() {
+            super(String.class, MAX_FRAME_LENGTH);
+        }
+
+        @Override
+        protected void encodeFrame(ChannelHandlerContext ctx, String message, Buffer out) {
+            out.writeBytes(message.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class StringDecoder extends VarIntFrameDecoder {
+
+        StringDecoder() {
+            super(MAX_FRAME_LENGTH);
+        }
+
+        @Override
+        protected Object decodeFrame(ChannelHandlerContext ctx, Buffer frame) {
+            return frame.readCharSequence(frame.readableBytes(), StandardCharsets.UTF_8).toString();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CronExpressionTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    void stepsAndSecondsField() {
+        assertNext("*/15 * * * *", "2024-01-10T10:07:00+01:00[Europe/Berlin]", "2024-01-10T10:15:00+01:00[Europe/Berlin]");
+        assertNext("30 0 12 * * *", "2024-01-10T12:00:30+01:00[Europe/Berlin]", "2024-01-11T12:00:30+01:00[Europe/Berlin]");
+        assertNext("@monthly", "2024-01-31T23:59:59+01:00[Europe/Berlin]", "2024-02-01T00:00:00+01:00[Europe/Berlin]");
+    }
+
+    @Test
+    void timeInTheSpringGapIsShiftedByTheGap() {
+        // 02:30 does not exist on 2024-03-31 in Berlin, the clocks jump from 02:00 to 03:00
+        assertNext("30 2 * * *", "2024-03-30T03:00:00+01:00[Europe/Berlin]", "2024-03-31T03:30:00+02:00[Europe/Berlin]");
+        assertNext("30 2 * * *", "2024-03-31T03:30:00+02:00[Europe/Berlin]", "2024-04-01T02:30:00+02:00[Europe/Berlin]");
+    }
+
+    @Test
+    void timeInTheAutumnOverlapFiresOnce() {
+        // 02:30 occurs twice on 2024-10-27 in Berlin, first in summer time
+        assertNext("30 2 * * *", "2024-10-27T00:00:00+02:00[Europe/Berlin]", "2024-10-27T02:30:00+02:00[Europe/Berlin]");
+        assertNext("30 2 * * *", "2024-10-27T02:30:00+02:00[Europe/Berlin]", "2024-10-28T02:30:00+01:00[Europe/Berlin]");
+        assertNext("0 * * * *", "2024-10-27T02:00:00+02:00[Europe/Berlin]", "2024-10-27T03:00:00+01:00[Europe/Berlin]");
+    }
+
+    @Test
+    void restrictedDayFieldsMatchEither() {
+        // the 13th or any friday
+        assertNext("0 0 13 * 5", "2024-09-01T00:00:00+02:00[Europe/Berlin]", "2024-09-06T00:00:00+02:00[Europe/Berlin]");
+        assertNext("0 0 13 * 5", "2024-09-07T00:00:00+02:00[Europe/Berlin]", "2024-09-13T00:00:00+02:00[Europe/Berlin]");
+        // 7 is sunday as well
+        assertNext("0 0 * * 7", "2024-09-01T00:00:00+02:00[Europe/Berlin]", "2024-09-08T00:00:00+02:00[Europe/Berlin]");
+    }
+
+    @Test
+    void impossibleDateHasNoNextTime() {
+        assertNull(CronExpression.parse("0 0 30 2 *").next(ZonedDateTime.now(BERLIN)));
+    }
+
+    @Test
+    void malformedExpressionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * FOO *"));
+    }
+
+    private static void assertNext(String expression, String after, String expected) {
+        ZonedDateTime next = CronExpression.parse(expression).next(ZonedDateTime.parse(after));
+        assertEquals(ZonedDateTime.parse(expected).toOffsetDateTime(), next.toOffsetDateTime());
+    }
+
+}
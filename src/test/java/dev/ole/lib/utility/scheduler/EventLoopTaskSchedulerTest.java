@@ -0,0 +1,95 @@
+package dev.ole.lib.utility.scheduler;
+
+import io.netty5.util.concurrent.DefaultEventExecutorGroup;
+import io.netty5.util.concurrent.EventExecutor;
+import io.netty5.util.concurrent.EventExecutorGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLoopTaskSchedulerTest {
+
+    private final EventExecutorGroup group = new DefaultEventExecutorGroup(2);
+
+    private final EventLoopTaskScheduler scheduler = new EventLoopTaskScheduler(group);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void dueEntryRunsInlineOnItsLoop() throws Exception {
+        EventExecutor loop = group.next();
+        CompletableFuture<Boolean> ranInline = new CompletableFuture<>();
+        loop.execute(() -> {
+            boolean[] ran = new boolean[1];
+            scheduler.schedule(loop, () -> ran[0] = true, 0, TimeUnit.MILLISECONDS);
+            ranInline.complete(ran[0]);
+        });
+        assertTrue(ranInline.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void repeatsOnTheLoopDoNotNestWithoutBound() throws Exception {
+        EventExecutor loop = group.next();
+        AtomicInteger runs = new AtomicInteger();
+        TaskEntry<Void> entry = new TaskEntry<>(() -> {
+            runs.incrementAndGet();
+            return null;
+        }, null, 0, 10000);
+        entry.affinity = loop;
+        CompletableFuture<TaskEntryFuture<Void>> future = new CompletableFuture<>();
+        loop.execute(() -> future.complete(scheduler.schedule(entry)));
+
+        future.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        assertEquals(10000, runs.get());
+    }
+
+    @Test
+    void delaysAreKeptByTheLoop() throws Exception {
+        EventExecutor loop = group.next();
+        CompletableFuture<Boolean> onLoop = new CompletableFuture<>();
+        long start = System.nanoTime();
+        scheduler.schedule(loop, () -> onLoop.complete(loop.inEventLoop()), 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(onLoop.get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "ran before its delay");
+        assertNull(scheduler.timingWheel, "started a timer thread");
+        assertEquals(0, scheduler.workerCount.get());
+    }
+
+    @Test
+    void cancelReleasesTheLoopTimer() {
+        for (int i = 0; i < 1000; i++) {
+            scheduler.schedule(group.next(), () -> { }, 1, TimeUnit.HOURS).cancel(false);
+        }
+        assertTrue(scheduler.delayedEntries.isEmpty());
+    }
+
+    @Test
+    void shutdownReturnsTheDelayedEntries() throws Exception {
+        TaskEntryFuture<Void> delayed = scheduler.schedule(group.next(), () -> { }, 1, TimeUnit.HOURS);
+        scheduler.schedule(group.next(), () -> { }, 1, TimeUnit.HOURS).cancel(false);
+
+        Collection<TaskEntry<?>> entries = scheduler.shutdown();
+        assertEquals(1, entries.size());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> delayed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+}
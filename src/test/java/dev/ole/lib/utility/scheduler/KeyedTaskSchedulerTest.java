@@ -0,0 +1,128 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedTaskSchedulerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private TaskScheduler scheduler = new TaskScheduler(4);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void entriesOfAKeyRunInOrderOneAtATime() throws Exception {
+        KeyedTaskScheduler<Integer> keyed = new KeyedTaskScheduler<>(scheduler);
+        List<List<Integer>> runs = new ArrayList<>();
+        AtomicInteger[] running = new AtomicInteger[4];
+        AtomicBoolean overlapped = new AtomicBoolean();
+        for (int key = 0; key < 4; key++) {
+            runs.add(new ArrayList<>());
+            running[key] = new AtomicInteger();
+        }
+
+        List<TaskEntryFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = i % 4, index = i;
+            futures.add(keyed.schedule(key, () -> {
+                if (running[key].incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                runs.get(key).add(index);
+                running[key].decrementAndGet();
+            }));
+        }
+        for (TaskEntryFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertFalse(overlapped.get());
+        for (int key = 0; key < 4; key++) {
+            List<Integer> run = runs.get(key);
+            assertEquals(500, run.size());
+            for (int i = 0; i < run.size(); i++) {
+                assertEquals(i * 4 + key, run.get(i));
+            }
+        }
+        assertEquals(0, keyed.getActiveKeys());
+        // the drains are not counted, only the entries
+        assertEquals(2000, scheduler.getMetrics().getCompletedCount());
+    }
+
+    @Test
+    void blockedKeyDoesNotHoldUpOtherKeys() throws Exception {
+        KeyedTaskScheduler<String> keyed = new KeyedTaskScheduler<>(scheduler);
+        keyed.schedule("blocked", () -> {
+            release.await();
+            return null;
+        });
+        TaskEntryFuture<Void> behind = keyed.schedule("blocked", () -> { });
+
+        keyed.schedule("other", () -> { }).get(5, TimeUnit.SECONDS);
+        assertFalse(behind.isDone());
+        assertTrue(keyed.isActive("blocked"));
+
+        release.countDown();
+        behind.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void failedEntryDoesNotStopTheKey() throws Exception {
+        KeyedTaskScheduler<String> keyed = new KeyedTaskScheduler<>(scheduler);
+        TaskEntryFuture<Void> failed = keyed.schedule("key", () -> {
+            throw new IllegalStateException("failed");
+        });
+        TaskEntryFuture<Integer> next = keyed.schedule("key", () -> 42);
+
+        assertEquals(42, next.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    @Test
+    void shutdownFailsTheQueuedEntriesOfAKey() throws Exception {
+        scheduler.shutdownNow();
+        scheduler = new TaskScheduler(1);
+        KeyedTaskScheduler<String> keyed = new KeyedTaskScheduler<>(scheduler);
+        CountDownLatch started = new CountDownLatch(1);
+        TaskEntryFuture<Void> running = keyed.schedule("key", () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        TaskEntryFuture<Void> queued = keyed.schedule("key", () -> { });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        scheduler.shutdown();
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, keyed.getActiveKeys());
+        assertThrows(RejectedExecutionException.class, () -> keyed.schedule("key", () -> { }));
+    }
+
+}
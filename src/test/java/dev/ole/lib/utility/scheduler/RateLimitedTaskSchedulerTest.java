@@ -0,0 +1,81 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitedTaskSchedulerTest {
+
+    private final TaskScheduler scheduler = new TaskScheduler(1);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void releasesAreNotCounted() throws Exception {
+        RateLimitedTaskScheduler<String> limiter = new RateLimitedTaskScheduler<>(scheduler, 100, 1);
+        List<TaskEntryFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(limiter.schedule("key", () -> { }));
+        }
+        for (TaskEntryFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        // the counters are updated after the futures completed
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(5, scheduler.getMetrics().getSubmittedCount());
+        assertEquals(5, scheduler.getMetrics().getCompletedCount());
+    }
+
+    @Test
+    void keepsSubmissionOrderPerKey() throws Exception {
+        RateLimitedTaskScheduler<String> limiter = new RateLimitedTaskScheduler<>(scheduler, 2000, 1);
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+        TaskEntryFuture<Void> last = null;
+        for (int i = 0; i < 500; i++) {
+            int index = i;
+            last = limiter.schedule("key", () -> {
+                ran.add(index);
+            });
+            if (i % 50 == 0) {
+                // let the releases catch up, so later entries meet a release which is handing over
+                Thread.sleep(1);
+            }
+        }
+        last.get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < ran.size(); i++) {
+            assertEquals(i, ran.get(i));
+        }
+        assertEquals(500, ran.size());
+    }
+
+    @Test
+    void shutdownFailsTheWaitingEntries() {
+        RateLimitedTaskScheduler<String> limiter = new RateLimitedTaskScheduler<>(scheduler, 0.001, 1);
+        limiter.schedule("key", () -> { });
+        TaskEntryFuture<Void> waiting = limiter.schedule("key", () -> { });
+        assertEquals(1, limiter.getWaiting("key"));
+
+        scheduler.shutdownNow();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(0, limiter.getWaiting("key"));
+    }
+
+}
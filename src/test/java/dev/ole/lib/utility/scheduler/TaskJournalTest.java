@@ -0,0 +1,156 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<TaskScheduler> schedulers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (TaskScheduler scheduler : schedulers) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private TaskJournal open(Path file) throws IOException {
+        return open(file, 10);
+    }
+
+    private TaskJournal open(Path file, long syncMillis) throws IOException {
+        TaskScheduler scheduler = new TaskScheduler(2);
+        schedulers.add(scheduler);
+        return new TaskJournal(file, scheduler, syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void recoversPendingDescriptorsAfterRestart() throws Exception {
+        Path file = directory.resolve("tasks.journal");
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        TaskJournal journal = open(file);
+        journal.register("echo", data -> ran.add(data.getAsString()));
+        journal.schedule("echo", "now", 0, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+        Instant due = Instant.now().plusMillis(300);
+        journal.schedule("echo", "soon", due);
+        journal.schedule("echo", "later", 1, TimeUnit.HOURS);
+        journal.schedule("echo", "cancelled", 1, TimeUnit.HOURS).cancel(false);
+        schedulers.get(0).shutdownNow();
+        journal.close();
+        assertEquals(List.of("now"), ran);
+
+        TaskJournal recovered = open(file);
+        assertEquals(2, recovered.getPending().size());
+        CountDownLatch soon = new CountDownLatch(1);
+        recovered.register("echo", data -> {
+            ran.add(data.getAsString());
+            soon.countDown();
+        });
+        assertEquals(2, recovered.recover());
+
+        assertTrue(soon.await(5, TimeUnit.SECONDS));
+        assertTrue(!Instant.now().isBefore(due), "ran before its due time");
+        assertEquals(List.of("now", "soon"), ran);
+        recovered.close();
+    }
+
+    @Test
+    void descriptorsWithoutHandlerStayPending() throws Exception {
+        Path file = directory.resolve("tasks.journal");
+        TaskJournal journal = open(file);
+        journal.register("echo", data -> { });
+        journal.schedule("echo", "later", 1, TimeUnit.HOURS);
+        schedulers.get(0).shutdownNow();
+        journal.close();
+
+        TaskJournal recovered = open(file);
+        assertEquals(0, recovered.recover());
+        assertEquals(1, recovered.getPending().size());
+        assertThrows(IllegalArgumentException.class, () -> recovered.schedule("unknown", "x", 0, TimeUnit.MILLISECONDS));
+        recovered.close();
+    }
+
+    @Test
+    void tornTailEndsTheJournal() throws Exception {
+        Path file = directory.resolve("tasks.journal");
+        TaskJournal journal = open(file);
+        journal.register("echo", data -> { });
+        journal.schedule("echo", "later", 1, TimeUnit.HOURS);
+        schedulers.get(0).shutdownNow();
+        journal.close();
+
+        // a record header promising more bytes than were written before a crash
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 50, 1, 2, 3}), endOfRecords(file));
+        }
+
+        TaskJournal recovered = open(file);
+        assertEquals(1, recovered.getPending().size());
+        recovered.register("echo", data -> { });
+        recovered.schedule("echo", "appended", 1, TimeUnit.HOURS);
+        schedulers.get(1).shutdownNow();
+        recovered.close();
+
+        assertEquals(2, open(file).getPending().size());
+    }
+
+    @Test
+    void compactionKeepsOnlyLiveDescriptorsOfAGrownJournal() throws Exception {
+        Path file = directory.resolve("tasks.journal");
+        // no periodic sync, so nothing compacts before the explicit call
+        TaskJournal journal = open(file, TimeUnit.HOURS.toMillis(1));
+        journal.register("echo", data -> { });
+        for (int i = 0; i < 20000; i++) {
+            journal.schedule("echo", "dead" + i, 1, TimeUnit.HOURS).cancel(false);
+        }
+        journal.schedule("echo", "live", 1, TimeUnit.HOURS);
+        assertTrue(Files.size(file) > 1 << 20, "journal did not grow");
+
+        journal.compact();
+        assertTrue(endOfRecords(file) < 200, "journal was not compacted");
+        journal.schedule("echo", "after", 1, TimeUnit.HOURS);
+        schedulers.get(0).shutdownNow();
+        journal.close();
+
+        TaskJournal recovered = open(file);
+        List<String> pending = new ArrayList<>();
+        for (TaskJournal.Descriptor descriptor : recovered.getPending()) {
+            pending.add(descriptor.getData().getAsString());
+        }
+        pending.sort(null);
+        assertEquals(List.of("after", "live"), pending);
+        recovered.close();
+    }
+
+    private static long endOfRecords(Path file) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int position = 8;
+        while (position + 8 <= bytes.capacity() && bytes.getInt(position) > 0) {
+            position += 8 + bytes.getInt(position);
+        }
+        return position;
+    }
+
+}
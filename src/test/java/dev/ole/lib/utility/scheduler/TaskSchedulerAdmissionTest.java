@@ -0,0 +1,104 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskSchedulerAdmissionTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private TaskScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts a single worker and keeps it busy, so new entries stay queued.
+     */
+    private TaskScheduler blockedScheduler(int capacity, RejectionPolicy policy) throws InterruptedException {
+        scheduler = new TaskScheduler(1).queueCapacity(capacity, policy);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return scheduler;
+    }
+
+    private TaskEntryFuture<Void> schedule(TaskLane lane) {
+        return scheduler.schedule(() -> { }, lane);
+    }
+
+    @Test
+    void discardOldestKeepsHigherLanes() throws InterruptedException {
+        blockedScheduler(2, RejectionPolicy.DISCARD_OLDEST);
+        TaskEntryFuture<Void> high = schedule(TaskLane.HIGH);
+        TaskEntryFuture<Void> normal = schedule(TaskLane.NORMAL);
+
+        assertThrows(RejectedExecutionException.class, () -> schedule(TaskLane.LOW));
+        assertFalse(high.isDone());
+        assertFalse(normal.isDone());
+        assertEquals(0, scheduler.getMetrics().getDiscardedCount());
+
+        TaskEntryFuture<Void> newer = schedule(TaskLane.NORMAL);
+        assertTrue(normal.isCancelled());
+        assertFalse(high.isDone());
+        assertFalse(newer.isDone());
+        assertEquals(1, scheduler.getMetrics().getDiscardedCount());
+        assertEquals(1, scheduler.getMetrics().getRejectedCount());
+    }
+
+    @Test
+    void discardOldestDoesNotCancelWithoutRoom() throws InterruptedException {
+        blockedScheduler(1, RejectionPolicy.DISCARD_OLDEST);
+        // holds the only permit in the timing wheel, where it cannot be discarded
+        TaskEntryFuture<Void> delayed = scheduler.schedule(() -> { }, TaskLane.LOW, 1, TimeUnit.HOURS);
+
+        assertThrows(RejectedExecutionException.class, () -> schedule(TaskLane.LOW));
+        assertFalse(delayed.isDone());
+        assertEquals(0, scheduler.getMetrics().getDiscardedCount());
+    }
+
+    @Test
+    void batchFailsTheEntriesAfterARejection() throws Exception {
+        blockedScheduler(2, RejectionPolicy.ABORT);
+        List<TaskEntry<Void>> entries = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            entries.add(new TaskEntry<>(() -> null, null, 0, 0));
+        }
+
+        List<TaskEntryFuture<Void>> futures = new ArrayList<>(scheduler.schedule(entries));
+        assertEquals(4, futures.size());
+        for (TaskEntryFuture<Void> future : futures.subList(2, 4)) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        }
+
+        release.countDown();
+        for (TaskEntryFuture<Void> future : futures.subList(0, 2)) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, scheduler.getMetrics().getRejectedCount());
+    }
+
+}
@@ -0,0 +1,35 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskSchedulerPoolTest {
+
+    @Test
+    void poolJumpsToTheBacklog() throws InterruptedException {
+        TaskScheduler scheduler = new TaskScheduler(16, true).coreThreads(1);
+        try {
+            for (int i = 0; i < 2000; i++) {
+                scheduler.schedule(() -> {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            while (scheduler.getCurrentThreadSize() < 16 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(scheduler.getCurrentThreadSize() >= 16, "pool has " + scheduler.getCurrentThreadSize() + " threads");
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package dev.ole.lib.utility.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskSchedulerShutdownTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final TaskScheduler scheduler = new TaskScheduler(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Keeps the only worker busy until the latch is released.
+     */
+    private TaskEntryFuture<Void> blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        TaskEntryFuture<Void> running = scheduler.schedule(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return running;
+    }
+
+    private static void assertRejected(TaskEntryFuture<?> future) {
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+    }
+
+    @Test
+    void unusedSchedulerTerminatesRightAway() {
+        scheduler.shutdown();
+        assertTrue(scheduler.isShutdown());
+        assertTrue(scheduler.isTerminated());
+    }
+
+    @Test
+    void shutdownRunsDueEntriesAndReturnsDelayedOnes() throws Exception {
+        TaskEntryFuture<Void> running = blockWorker();
+        List<TaskEntryFuture<Void>> due = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            due.add(scheduler.schedule(() -> { }));
+        }
+        TaskEntryFuture<Void> delayed = scheduler.schedule(() -> { }, TaskLane.NORMAL, 1, TimeUnit.HOURS);
+
+        Collection<TaskEntry<?>> left = scheduler.shutdown();
+        assertEquals(1, left.size());
+        assertRejected(delayed);
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() -> { }));
+        assertFalse(scheduler.isTerminated());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        for (TaskEntryFuture<Void> future : due) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shutdownNowReturnsQueuedEntriesAndInterruptsRunningOnes() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        TaskEntryFuture<Void> running = scheduler.schedule(() -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        TaskEntryFuture<Void> queued = scheduler.schedule(() -> { });
+        TaskEntryFuture<Void> delayed = scheduler.schedule(() -> { }, TaskLane.NORMAL, 1, TimeUnit.HOURS);
+
+        Collection<TaskEntry<?>> left = scheduler.shutdownNow();
+        assertEquals(2, left.size());
+        assertRejected(queued);
+        assertRejected(delayed);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InterruptedException.class, failure.getCause());
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void drainTimeoutStopsWhatIsLeft() throws Exception {
+        blockWorker();
+        TaskEntryFuture<Void> queued = scheduler.schedule(() -> { });
+
+        Collection<TaskEntry<?>> left = scheduler.shutdown(50, TimeUnit.MILLISECONDS);
+        assertEquals(1, left.size());
+        assertRejected(queued);
+        // the blocked entry sees the interrupt and the worker retires
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+}